@@ -0,0 +1,155 @@
+package com.project.demo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.project.demo.entity.Consumer;
+import com.project.demo.entity.Media;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode de Media e Consumer com os codecs Jackson do WebFlux (ObjectMapper com a configuracao por defeito do
+ * Spring Boot: JavaTimeModule e LocalDate como "yyyy-MM-dd"), para um objeto e para uma lista em JSON e NDJSON
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JsonCodecBenchmark {
+
+    @Param({"media", "consumer"})
+    private String entity;
+
+    @Param({"1000"})
+    private int listSize;
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    private Jackson2JsonEncoder encoder;
+
+    private Jackson2JsonDecoder decoder;
+
+    private ResolvableType type;
+
+    private Object value;
+
+    private List<Object> values;
+
+    private byte[] valueJson;
+
+    private byte[] arrayJson;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        encoder = new Jackson2JsonEncoder(objectMapper);
+        decoder = new Jackson2JsonDecoder(objectMapper);
+
+        values = new ArrayList<>(listSize);
+        for (int i = 1; i <= listSize; i++) {
+            values.add(entity.equals("media") ? media(i) : consumer(i));
+        }
+        value = values.get(0);
+        type = ResolvableType.forClass(value.getClass());
+
+        valueJson = join(encoder.encode(Mono.just(value), bufferFactory, type, MediaType.APPLICATION_JSON, null));
+        arrayJson = join(encoder.encode(Flux.fromIterable(values), bufferFactory, type, MediaType.APPLICATION_JSON, null));
+    }
+
+    @Benchmark
+    public int encodeValue() {
+        DataBuffer buffer = encoder.encodeValue(value, bufferFactory, type, MediaType.APPLICATION_JSON, null);
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+
+    @Benchmark
+    public int encodeJsonArray() {
+        return encodedSize(encoder.encode(Flux.fromIterable(values), bufferFactory, type, MediaType.APPLICATION_JSON, null));
+    }
+
+    @Benchmark
+    public int encodeNdjson() {
+        return encodedSize(encoder.encode(Flux.fromIterable(values), bufferFactory, type, MediaType.APPLICATION_NDJSON, null));
+    }
+
+    @Benchmark
+    public Object decodeValue() {
+        return decoder.decodeToMono(Mono.just(bufferFactory.wrap(valueJson)), type, MediaType.APPLICATION_JSON, null).block();
+    }
+
+    @Benchmark
+    public long decodeJsonArray() {
+        return decoder.decode(Mono.just(bufferFactory.wrap(arrayJson)), type, MediaType.APPLICATION_JSON, null)
+                .count()
+                .block();
+    }
+
+    private static int encodedSize(Flux<DataBuffer> buffers) {
+        return buffers.map(buffer -> {
+                    int size = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return size;
+                })
+                .reduce(0, Integer::sum)
+                .block();
+    }
+
+    private byte[] join(Flux<DataBuffer> buffers) {
+        DataBuffer joined = DataBufferUtils.join(buffers).block();
+        byte[] bytes = new byte[joined.readableByteCount()];
+        joined.read(bytes);
+        DataBufferUtils.release(joined);
+        return bytes;
+    }
+
+    static Media media(long id) {
+        Media media = new Media();
+        media.setId(id);
+        media.setTitle("Media " + id);
+        media.setReleaseDate(LocalDate.of(1970, 1, 1).plusDays(id));
+        media.setAverageRating((short) (id % 11));
+        media.setType(id % 2 == 0 ? "movie" : "tv");
+        return media;
+    }
+
+    static Consumer consumer(long id) {
+        Consumer consumer = new Consumer();
+        consumer.setId(id);
+        consumer.setName("Consumer " + id);
+        consumer.setAge((int) (18 + id % 60));
+        consumer.setGender(id % 2 == 0 ? "F" : "M");
+        return consumer;
+    }
+}
@@ -0,0 +1,102 @@
+package com.project.demo.benchmarks;
+
+import com.project.demo.entity.Consumer;
+import com.project.demo.entity.ConsumerMedia;
+import com.project.demo.entity.Media;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.test.MockColumnMetadata;
+import io.r2dbc.spi.test.MockRow;
+import io.r2dbc.spi.test.MockRowMetadata;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversao de uma linha R2DBC na entidade com o MappingR2dbcConverter do Spring Data (o mesmo caminho dos repositorios),
+ * sobre MockRow para medir apenas o mapeamento e nao o driver
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RowMappingBenchmark {
+
+    private MappingR2dbcConverter converter;
+
+    private MockRow mediaRow;
+
+    private MockRow consumerRow;
+
+    private MockRow consumerMediaRow;
+
+    @Setup
+    public void setUp() {
+        R2dbcCustomConversions conversions = R2dbcCustomConversions.of(PostgresDialect.INSTANCE, List.of());
+        R2dbcMappingContext mappingContext = new R2dbcMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingR2dbcConverter(mappingContext, conversions);
+
+        mediaRow = row(new Object[][]{
+                {"id", Long.class, 42L},
+                {"title", String.class, "Media 42"},
+                {"release_date", LocalDate.class, LocalDate.of(1999, 3, 31)},
+                {"average_rating", Short.class, (short) 8},
+                {"type", String.class, "movie"}});
+        consumerRow = row(new Object[][]{
+                {"id", Long.class, 7L},
+                {"name", String.class, "Consumer 7"},
+                {"age", Integer.class, 31},
+                {"gender", String.class, "F"}});
+        consumerMediaRow = row(new Object[][]{
+                {"consumer_id", Long.class, 7L},
+                {"media_id", Long.class, 42L}});
+    }
+
+    @Benchmark
+    public Media readMedia() {
+        return converter.read(Media.class, mediaRow, mediaRow.getMetadata());
+    }
+
+    @Benchmark
+    public Consumer readConsumer() {
+        return converter.read(Consumer.class, consumerRow, consumerRow.getMetadata());
+    }
+
+    @Benchmark
+    public ConsumerMedia readConsumerMedia() {
+        return converter.read(ConsumerMedia.class, consumerMediaRow, consumerMediaRow.getMetadata());
+    }
+
+    private static MockRow row(Object[][] columns) {
+        MockRowMetadata.Builder metadata = MockRowMetadata.builder();
+        MockRow.Builder row = MockRow.builder();
+        for (Object[] column : columns) {
+            metadata.columnMetadata(MockColumnMetadata.builder()
+                    .name((String) column[0])
+                    .javaType((Class<?>) column[1])
+                    .build());
+            // O converter le cada coluna com get(nome) (tipo Object) e converte depois para o tipo da propriedade
+            row.identified(column[0], Object.class, column[2]);
+        }
+        RowMetadata rowMetadata = metadata.build();
+        return row.metadata(rowMetadata).build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.project.demo.benchmarks;
+
+import com.project.demo.ProjectApplication;
+import com.project.demo.dto.KeysetPage;
+import com.project.demo.entity.Consumer;
+import com.project.demo.entity.Media;
+import com.project.demo.service.ConsumerMediaService;
+import com.project.demo.service.ConsumerService;
+import com.project.demo.service.MediaService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Pipelines reativos de MediaService, ConsumerService e ConsumerMediaService com o contexto Spring da aplicacao
+ * (pool, cache, aspect de metricas) sobre uma base de dados H2 em memoria (h2/schema.sql e h2/data.sql).
+ * O parametro cacheSize 0 desliga a cache de getById para medir o caminho ate a base de dados
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int MEDIA_COUNT = 10_000;
+
+    private static final int CONSUMER_COUNT = 1_000;
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    private ConfigurableApplicationContext context;
+
+    private MediaService mediaService;
+
+    private ConsumerService consumerService;
+
+    private ConsumerMediaService consumerMediaService;
+
+    @Setup
+    public void setUp() {
+        // Argumentos de linha de comandos para terem precedencia sobre o application.properties do demo
+        context = new SpringApplicationBuilder(ProjectApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.r2dbc.url=r2dbc:h2:mem:///benchmarks;DB_CLOSE_DELAY=-1",
+                        "--spring.r2dbc.username=sa",
+                        "--spring.r2dbc.password=",
+                        "--spring.r2dbc.properties.preparedStatementCacheQueries=",
+                        "--spring.sql.init.schema-locations=classpath:h2/schema.sql",
+                        "--spring.sql.init.data-locations=classpath:h2/data.sql",
+                        "--project.cache.media.max-size=" + cacheSize,
+                        "--project.cache.consumer.max-size=" + cacheSize,
+                        "--logging.level.root=WARN");
+        mediaService = context.getBean(MediaService.class);
+        consumerService = context.getBean(ConsumerService.class);
+        consumerMediaService = context.getBean(ConsumerMediaService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Media getMediaById() {
+        return mediaService.getMediaById(randomId(MEDIA_COUNT)).block();
+    }
+
+    @Benchmark
+    public Consumer getConsumerById() {
+        return consumerService.getConsumerById(randomId(CONSUMER_COUNT)).block();
+    }
+
+    @Benchmark
+    public KeysetPage<Media> getMediaPage() {
+        return mediaService.getMediaPage(randomId(MEDIA_COUNT - 100), 100).block();
+    }
+
+    @Benchmark
+    public KeysetPage<Consumer> getConsumerPage() {
+        return consumerService.getConsumerPage(randomId(CONSUMER_COUNT - 100), 100).block();
+    }
+
+    @Benchmark
+    public List<Media> getMediaByIds() {
+        long first = randomId(MEDIA_COUNT - 100);
+        return mediaService.getMediaByIds(LongStream.range(first, first + 100).boxed().toList()).collectList().block();
+    }
+
+    @Benchmark
+    public Long getAllMedia() {
+        return mediaService.getAllMedia().count().block();
+    }
+
+    @Benchmark
+    public Long getAllConsumers() {
+        return consumerService.getAllConsumers().count().block();
+    }
+
+    @Benchmark
+    public Long getRelationshipsByMediaId() {
+        return consumerMediaService.getRelationshipsByMediaId(randomId(MEDIA_COUNT)).count().block();
+    }
+
+    private static long randomId(int max) {
+        return ThreadLocalRandom.current().nextLong(1, max + 1);
+    }
+}
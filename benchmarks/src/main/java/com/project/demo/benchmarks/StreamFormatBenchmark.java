@@ -0,0 +1,121 @@
+package com.project.demo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.project.demo.codec.SmileCodecs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams de uma tabela grande (os endpoints bulk) em NDJSON e em Smile (application/stream+x-jackson-smile), com os codecs
+ * que o servidor e o cliente usam: tempo de encode e de decode por linha (ns/op) e bytes por linha,
+ * escritos no output do setup ("bytes per row")
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@OperationsPerInvocation(StreamFormatBenchmark.ROWS)
+public class StreamFormatBenchmark {
+
+    static final int ROWS = 10_000;
+
+    @Param({"media", "consumer"})
+    private String entity;
+
+    @Param({"ndjson", "smile"})
+    private String format;
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    private Encoder<Object> encoder;
+
+    private Decoder<Object> decoder;
+
+    private MediaType mediaType;
+
+    private ResolvableType type;
+
+    private List<Object> values;
+
+    private byte[] stream;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        if (format.equals("smile")) {
+            encoder = (Encoder<Object>) (Encoder<?>) SmileCodecs.encoder();
+            decoder = (Decoder<Object>) (Decoder<?>) SmileCodecs.decoder();
+            mediaType = SmileCodecs.SMILE_STREAM;
+        } else {
+            // Como o ObjectMapper do Spring Boot: LocalDate em texto "yyyy-MM-dd"
+            ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            encoder = new Jackson2JsonEncoder(objectMapper);
+            decoder = new Jackson2JsonDecoder(objectMapper);
+            mediaType = MediaType.APPLICATION_NDJSON;
+        }
+
+        values = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            values.add(entity.equals("media") ? JsonCodecBenchmark.media(i) : JsonCodecBenchmark.consumer(i));
+        }
+        type = ResolvableType.forClass(values.get(0).getClass());
+
+        DataBuffer joined = DataBufferUtils.join(encoder.encode(Flux.fromIterable(values), bufferFactory, type, mediaType, null)).block();
+        stream = new byte[joined.readableByteCount()];
+        joined.read(stream);
+        DataBufferUtils.release(joined);
+        System.out.printf("%n%s %s: %.1f bytes per row%n", entity, format, (double) stream.length / ROWS);
+    }
+
+    @Benchmark
+    public int encode() {
+        return encoder.encode(Flux.fromIterable(values), bufferFactory, type, mediaType, null)
+                .map(buffer -> {
+                    int size = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return size;
+                })
+                .reduce(0, Integer::sum)
+                .block();
+    }
+
+    @Benchmark
+    public long decode() {
+        return decoder.decode(Mono.just(bufferFactory.wrap(stream)), type, mediaType, null)
+                .count()
+                .block();
+    }
+}
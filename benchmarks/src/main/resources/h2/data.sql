@@ -0,0 +1,12 @@
+-- 10000 media, 1000 consumidores e 10 subscricoes por consumidor
+INSERT INTO media (title, release_date, average_rating, type)
+SELECT 'Media ' || X, DATEADD(DAY, X, DATE '1970-01-01'), MOD(X, 11), CASE WHEN MOD(X, 2) = 0 THEN 'movie' ELSE 'tv' END
+FROM SYSTEM_RANGE(1, 10000);
+
+INSERT INTO consumer (name, age, gender)
+SELECT 'Consumer ' || X, 18 + MOD(X, 60), CASE WHEN MOD(X, 2) = 0 THEN 'F' ELSE 'M' END
+FROM SYSTEM_RANGE(1, 1000);
+
+INSERT INTO consumer_media (consumer_id, media_id)
+SELECT C.X, 1 + MOD(C.X * 97 + M.X * 1009, 10000)
+FROM SYSTEM_RANGE(1, 1000) C, SYSTEM_RANGE(1, 10) M;
@@ -0,0 +1,28 @@
+-- Mesmas tabelas de demo/bd/criar_tabelas_script.sql, com IDENTITY em vez de BIGSERIAL
+CREATE TABLE consumer (
+	id	 BIGINT GENERATED BY DEFAULT AS IDENTITY,
+	name	 VARCHAR(512) NOT NULL,
+	age	 INTEGER NOT NULL,
+	gender VARCHAR(512) NOT NULL,
+	PRIMARY KEY(id)
+);
+
+CREATE TABLE media (
+	id		 BIGINT GENERATED BY DEFAULT AS IDENTITY,
+	title		 VARCHAR(512) NOT NULL,
+	release_date	 DATE NOT NULL,
+	average_rating SMALLINT NOT NULL,
+	type		 VARCHAR(512) NOT NULL,
+	PRIMARY KEY(id)
+);
+
+CREATE TABLE consumer_media (
+	consumer_id BIGINT,
+	media_id	 BIGINT,
+	PRIMARY KEY(consumer_id,media_id)
+);
+
+ALTER TABLE consumer_media ADD CONSTRAINT consumer_media_fk1 FOREIGN KEY (consumer_id) REFERENCES consumer(id);
+ALTER TABLE consumer_media ADD CONSTRAINT consumer_media_fk2 FOREIGN KEY (media_id) REFERENCES media(id);
+
+CREATE INDEX consumer_media_media_id_idx ON consumer_media (media_id, consumer_id);
@@ -24,3 +24,10 @@ CREATE TABLE consumer_media (
 ALTER TABLE consumer_media ADD CONSTRAINT consumer_media_fk1 FOREIGN KEY (consumer_id) REFERENCES consumer(id);
 ALTER TABLE consumer_media ADD CONSTRAINT consumer_media_fk2 FOREIGN KEY (media_id) REFERENCES media(id);
 
+-- A chave primaria (consumer_id, media_id) so serve pesquisas por consumer; este indice serve as pesquisas por media
+CREATE INDEX consumer_media_media_id_idx ON consumer_media (media_id, consumer_id);
+
+-- Indices para as pesquisas por intervalo e ordenacao de /api/media/search (e filtros das estatisticas)
+CREATE INDEX media_release_date_idx ON media (release_date);
+CREATE INDEX media_average_rating_idx ON media (average_rating);
+CREATE INDEX media_type_idx ON media (type);
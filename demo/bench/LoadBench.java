@@ -0,0 +1,106 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gerador de carga em loop fechado, so com o JDK (java LoadBench.java ...).
+ * Cada worker faz pedidos seguidos aos endpoints, em rotacao; o aquecimento nao entra nas medicoes.
+ * Uso: java LoadBench.java <label> <baseUrl> <concorrencia> <segundosAquecimento> <segundosMedicao> <path>...
+ * Escreve uma linha: label, pedidos/s, p50, p99, p99.9 e max (ms), erros
+ */
+public class LoadBench {
+
+    public static void main(String[] args) throws Exception {
+        String label = args[0];
+        String baseUrl = args[1];
+        int concurrency = Integer.parseInt(args[2]);
+        long warmupNanos = Duration.ofSeconds(Long.parseLong(args[3])).toNanos();
+        long measureNanos = Duration.ofSeconds(Long.parseLong(args[4])).toNanos();
+        List<URI> uris = new ArrayList<>();
+        for (int i = 5; i < args.length; i++) {
+            uris.add(URI.create(baseUrl + args[i]));
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + measureNanos;
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[concurrency][];
+        int[] counts = new int[concurrency];
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            Thread thread = new Thread(() -> {
+                long[] samples = new long[1 << 16];
+                int count = 0;
+                int next = worker;
+                long now = System.nanoTime();
+                while (now < end) {
+                    HttpRequest request = HttpRequest.newBuilder(uris.get(next++ % uris.size()))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    long sent = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    now = System.nanoTime();
+                    if (sent < measureFrom || now > end) {
+                        continue;
+                    }
+                    if (!ok) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = now - sent;
+                }
+                latencies[worker] = samples;
+                counts[worker] = count;
+                done.countDown();
+            }, "bench-" + w);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int w = 0; w < concurrency; w++) {
+            System.arraycopy(latencies[w], 0, all, offset, counts[w]);
+            offset += counts[w];
+        }
+        Arrays.sort(all);
+
+        double seconds = measureNanos / 1e9;
+        System.out.printf("%-10s %10.1f %8.2f %8.2f %8.2f %8.2f %7d%n", label, total / seconds,
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999),
+                total == 0 ? 0.0 : all[total - 1] / 1e6, errors.get());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Compara o servidor Reactor Netty (build por defeito) com o Tomcat em modo servlet (perfil -Pservlet)
+# nos mesmos endpoints. Requer a base de dados configurada em application.properties.
+#
+# Uso: bench/compare.sh            (a partir da pasta demo)
+# Variaveis: CONCURRENCY (64), WARMUP (10s), DURATION (30s), PORT (8080), MVN (mvn), PATHS (endpoints separados por espaco)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+CONCURRENCY=${CONCURRENCY:-64}
+WARMUP=${WARMUP:-10}
+DURATION=${DURATION:-30}
+PORT=${PORT:-8080}
+PATHS=${PATHS:-"/api/media/1 /api/consumers/1 /api/media?limit=100 /api/relationships?mediaId=1"}
+WORK=target/bench
+MVN=${MVN:-mvn}
+
+mkdir -p "$WORK"
+
+# O build servlet primeiro, para que target/ fique com o build por defeito no fim
+"$MVN" -B -q -Pservlet package -DskipTests
+cp target/demo-0.0.1-SNAPSHOT-exec.jar "$WORK/servlet.jar"
+"$MVN" -B -q package -DskipTests
+cp target/demo-0.0.1-SNAPSHOT-exec.jar "$WORK/netty.jar"
+
+run() {
+    local label=$1
+    java -jar "$WORK/$label.jar" --server.port="$PORT" > "$WORK/$label.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+
+    for _ in $(seq 60); do
+        curl -sf "http://localhost:$PORT/actuator/health" > /dev/null && break
+        sleep 1
+    done
+
+    # shellcheck disable=SC2086
+    java bench/LoadBench.java "$label" "http://localhost:$PORT" "$CONCURRENCY" "$WARMUP" "$DURATION" $PATHS
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+printf "%-10s %10s %8s %8s %8s %8s %7s\n" server "req/s" "p50 ms" "p99 ms" "p99.9 ms" "max ms" errors
+run netty
+run servlet
@@ -2,433 +2,358 @@ package com.project.demo;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.project.demo.client.ChangeFeedWatcher;
+import com.project.demo.client.FileSink;
+import com.project.demo.client.HttpResponseCache;
+import com.project.demo.client.LoadGenerator;
+import com.project.demo.client.LoadTestOptions;
+import com.project.demo.client.LongMultimap;
+import com.project.demo.client.LongObjectMap;
+import com.project.demo.client.MediaStatsCollector;
+import com.project.demo.client.Resilience;
+import com.project.demo.client.SubscribedMedia;
+import com.project.demo.client.TransportOptions;
+import com.project.demo.codec.SmileCodecs;
+import com.project.demo.dto.MediaStats;
+import com.project.demo.dto.MediaSubscriber;
+import com.project.demo.dto.MediaSubscriberCount;
 import com.project.demo.entity.Consumer;
 import com.project.demo.entity.ConsumerMedia;
 import com.project.demo.entity.Media;
+import com.project.demo.stats.StreamingCollectors;
+import com.project.demo.stats.TDigest;
 
-import reactor.util.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.time.Duration;
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 public class ReactiveClientApplication {
 
     private static final Logger logger = LoggerFactory.getLogger(ReactiveClientApplication.class);
+
+    // Conexoes por defeito: as queries fazem cerca de 10 pedidos em simultaneo
+    private static final int MAX_CONNECTIONS = 16;
+
     private final WebClient webClient;
+    private final Resilience resilience; // timeouts, retries, circuit breaker e hedging de todos os pedidos
+    private final MediaType streamType; // NDJSON ou Smile (--format)
     private final String[] filePaths; // Array of file paths
+    private final Mono<MediaStats> mediaStats; // estatisticas partilhadas pelas queries 2, 3, 6 e 7
 
+    // Fontes partilhadas: cada endpoint e descarregado uma unica vez e transmitido (publish) elemento a elemento
+    // a todas as queries que o usam, sem guardar a tabela toda em memoria. O download so comeca em connectSources(),
+    // depois de todas as queries subscreverem
+    private final ConnectableFlux<Media> media;
+    private final ConnectableFlux<Consumer> consumers;
+    private final ConnectableFlux<ConsumerMedia> relationships;
+    private final ConnectableFlux<MediaSubscriberCount> subscriberCounts; // queries 4 e 8
 
-    public ReactiveClientApplication(WebClient.Builder webClientBuilder, String baseUrl, String[] filePaths) {
+
+    public ReactiveClientApplication(WebClient.Builder webClientBuilder, String baseUrl, String[] filePaths, Resilience resilience,
+                                     MediaType streamType) {
         this.webClient = webClientBuilder.baseUrl(baseUrl).build();
+        this.resilience = resilience;
+        this.streamType = streamType;
         this.filePaths = filePaths;
+        this.media = sharedSource("/api/media", Media.class);
+        this.consumers = sharedSource("/api/consumers", Consumer.class);
+        this.relationships = sharedSource("/api/relationships", ConsumerMedia.class);
+        this.subscriberCounts = sharedSource("/api/relationships/counts", MediaSubscriberCount.class);
+        // Estatisticas calculadas no mesmo download partilhado de /api/media, num unico passo e memoria constante,
+        // e reutilizadas (cache) por todas as queries que precisam delas
+        this.mediaStats = media.collect(MediaStatsCollector.of((short) 8)).cache();
+    }
+
+    // Download em stream (NDJSON ou Smile) partilhado; o ritmo e o do subscritor mais lento (buffer limitado do publish)
+    private <T> ConnectableFlux<T> sharedSource(String uri, Class<T> type) {
+        return resilience.call("GET " + uri, () -> webClient.get()
+                        .uri(uri)
+                        .accept(streamType)
+                        .retrieve()
+                        .bodyToFlux(type))
+                .publish();
+    }
+
+    // Iniciar os downloads partilhados (um pedido por endpoint)
+    private void connectSources() {
+        media.connect();
+        consumers.connect();
+        relationships.connect();
+        subscriberCounts.connect();
     }
 
     // Método para obter o titulo da media (teste para o endpoint), com logs 
     private void getAllMedia(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .map(media -> "ID: " + media.getId() +"Title: " + media.getTitle() + "; Rating - " + media.getAverageRating() + " ; Release Date : + " + media.getReleaseDate())//output
-                .doOnComplete(() -> {
-                    logger.info("Completed fetching all media titles");
-                    latch.countDown(); // uso do latch para fazer sinal quando o Flux completar a tarefa
-                })
-                .subscribe(
-                    mediaTitle -> writeToFile(mediaTitle, filePaths[0]),// escrever no ficheiro
-                    error -> logger.error("Error during subscription: ", error)
-                );
+        FileSink.write(media
+                .map(media -> "ID: " + media.getId() +"Title: " + media.getTitle() + "; Rating - " + media.getAverageRating() + " ; Release Date : + " + media.getReleaseDate()), //output
+                filePaths[0]) // escrever no ficheiro
+                .doOnSuccess(done -> logger.info("Completed fetching all media titles"))
+                .doOnTerminate(latch::countDown) // uso do latch para fazer sinal quando o ficheiro estiver escrito e fechado
+                .subscribe(null, error -> logger.error("Error during subscription: ", error));
     }
 
     //Método para obter informacao das relaçoes entre users e a media
     private void getAllRelationships(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/relationships") //endpoint
-                .retrieve()
-                .bodyToFlux(ConsumerMedia.class) // Buscar relacoes
-                .map(relationship -> "Consumer ID: " + relationship.getConsumerId() + "; Media ID: " + relationship.getMediaId()) //output
-                .doOnComplete(() -> {
-                    logger.info("Completed fetching all consumer-media relationships");
-                    latch.countDown(); 
-                })
-                .subscribe(
-                    relationshipInfo -> writeToFile(relationshipInfo, filePaths[2]), 
-                    error -> logger.error("Error during subscription for relationships: ", error)
-                );
+        FileSink.write(relationships // Buscar relacoes
+                .map(relationship -> "Consumer ID: " + relationship.getConsumerId() + "; Media ID: " + relationship.getMediaId()), //output
+                filePaths[2])
+                .doOnSuccess(done -> logger.info("Completed fetching all consumer-media relationships"))
+                .doOnTerminate(latch::countDown)
+                .subscribe(null, error -> logger.error("Error during subscription for relationships: ", error));
     }
 
     //Método para obter informacoes dos consumers
     private void getAllConsumers(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/consumers") 
-                .retrieve()
-                .bodyToFlux(Consumer.class) 
-                .map(consumer -> "Consumer ID: " + consumer.getId() + "; Name: " + consumer.getName() + "; Age : " + consumer.getAge()) 
-                .doOnComplete(() -> {
-                    logger.info("Completed fetching all consumers");
-                    latch.countDown(); 
-                })
-                .subscribe(
-                    consumerInfo -> writeToFile(consumerInfo, filePaths[1]), 
-                    error -> logger.error("Error during subscription for consumers: ", error)
-                );
+        FileSink.write(consumers
+                .map(consumer -> "Consumer ID: " + consumer.getId() + "; Name: " + consumer.getName() + "; Age : " + consumer.getAge()),
+                filePaths[1])
+                .doOnSuccess(done -> logger.info("Completed fetching all consumers"))
+                .doOnTerminate(latch::countDown)
+                .subscribe(null, error -> logger.error("Error during subscription for consumers: ", error));
     }
     
     
 
     // QUERIE 1: Método para obter os titulos e datas das medias
     private void getMediaTitlesAndDates(CountDownLatch latch){ 
-        webClient.get()
-            .uri("/api/media") 
-            .retrieve()
-            .bodyToFlux(Media.class)
-            .map(media -> "Title: " + media.getTitle() + "; Release Date: " + media.getReleaseDate()) //Buscar titulo e data de lancamento de media
-            .doOnComplete(() -> {
-                logger.info("Getting titles and dates Completed");
-                latch.countDown(); //Diminuir o lacth
-            })
-            .subscribe(
-                data -> writeToFile(data,filePaths[3]), //Escrever no ficheiro correspondente
-                error -> logger.error("Error doing the subscription for titles and dates", error)
-            );              
+        FileSink.write(media
+            .map(media -> "Title: " + media.getTitle() + "; Release Date: " + media.getReleaseDate()), //Buscar titulo e data de lancamento de media
+            filePaths[3]) //Escrever no ficheiro correspondente
+            .doOnSuccess(done -> logger.info("Getting titles and dates Completed"))
+            .doOnTerminate(latch::countDown) //Diminuir o lacth
+            .subscribe(null, error -> logger.error("Error doing the subscription for titles and dates", error));
         }
 
         // QUERIE 2: Método para obter o numero total de media items
         private void getTotalCountMedia(CountDownLatch latch){
-        webClient.get()
-            .uri("/api/media")
-            .retrieve()
-            .bodyToFlux(Media.class)
-            .count()  // Conta o numero total de items 
-            .doOnSuccess(count -> {
-                logger.info("Total media count retrieved successfully: {}", count);
-                latch.countDown();
-            })
-            .subscribe(
-                count -> writeToFile("Total Media Count: " + count, filePaths[4]),
-                error -> logger.error("Error fetching media count", error)
-            );
+        FileSink.write(mediaStats
+            .map(MediaStats::getTotalCount) // contagem no mesmo passo sobre as medias
+            .doOnSuccess(count -> logger.info("Total media count retrieved successfully: {}", count))
+            .map(count -> "Total Media Count: " + count),
+            filePaths[4])
+            .doOnTerminate(latch::countDown)
+            .subscribe(null, error -> logger.error("Error fetching media count", error));
     }
 
     
     // QUERIE 3: Método para obter o numero total de media items com rating acima de 8
     private void getCountMediaMoreThan8(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .filter(media -> media.getAverageRating() > 8) // Filtrar por media com rating acima de 8
-                .count() // fazer contagem
-                .doOnSuccess(count -> {
-                    logger.info("Total media count of media with average rating above 8 retrieved successfully: {}", count);
-                    latch.countDown(); 
-                })
-                .subscribe(
-                    count -> writeToFile("Total Media Count (Rating > 8): " + count, filePaths[5]), 
-                    error -> logger.error("Error fetching media count", error) 
-                );
+        FileSink.write(mediaStats
+                .map(MediaStats::getCountAboveThreshold) // contagem com rating > 8 no mesmo passo sobre as medias
+                .doOnSuccess(count -> logger.info("Total media count of media with average rating above 8 retrieved successfully: {}", count))
+                .map(count -> "Total Media Count (Rating > 8): " + count),
+                filePaths[5])
+                .doOnTerminate(latch::countDown)
+                .subscribe(null, error -> logger.error("Error fetching media count", error));
     }
 
 
     //QUERIE  4: Metodo para contar numero de medias que têm subscritores
     private void getCountSubscribedMedia(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/relationships") 
-                .retrieve()
-                .bodyToFlux(ConsumerMedia.class)
-                .map(ConsumerMedia::getMediaId) // Extrair media IDs das relationships
-                .distinct() // Contar apenas IDs unicos
+        FileSink.write(subscriberCounts // uma linha por media com pelo menos um subscritor
                 .count() // Fazer contagem
-                .doOnSuccess(count -> {
-                    logger.info("Total subscribed media count retrieved successfully: {}", count);
-                    latch.countDown(); 
-                })
-                .doOnError(error -> {
-                    logger.error("Error fetching total subscribed media count", error);
-                    latch.countDown(); 
-                })
-                .subscribe(
-                    count -> writeToFile("Total Subscribed Media Count: " + count, filePaths[6]), 
-                    error -> logger.error("Error during subscription: ", error)
-                );
+                .doOnSuccess(count -> logger.info("Total subscribed media count retrieved successfully: {}", count))
+                .map(count -> "Total Subscribed Media Count: " + count),
+                filePaths[6])
+                .doOnTerminate(latch::countDown)
+                .subscribe(null, error -> logger.error("Error during subscription: ", error));
     }           
 
     //QUERIE 5: Metodo para obter medias dos anos 80
     private void getMediaFrom80s(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/media")
-                .retrieve()
-                .bodyToFlux(Media.class) 
-                .filter(media -> {
-                    LocalDate releaseDate = media.getReleaseDate(); //Buscsar data de lancamento
-                    //utilizar LocalDate para datas
-                    LocalDate start_80s = LocalDate.of(1980, 1, 1); // primeiro dia dos anos 80
-                    LocalDate end_80s = LocalDate.of(1989, 12, 31); // ultimo dia dos anos 80
-                    return !releaseDate.isBefore(start_80s) && !releaseDate.isAfter(end_80s); // metodos de comparacao de datas 
-                })
-                .sort((media1, media2) -> Double.compare(media2.getAverageRating(), media1.getAverageRating())) // Utilizar metodo sort para ordernar
-                .map(media -> "Title: " + media.getTitle() + "; Rating: " + media.getAverageRating() + "; Release Date: " + media.getReleaseDate())
-                .doOnComplete(() -> {
-                    logger.info("Completed fetching 1980s media items sorted by rating");
-                    latch.countDown(); 
-                })
-                .subscribe(
-                    mediaInfo -> writeToFile(mediaInfo, filePaths[7]), 
-                    error -> logger.error("Error fetching 1980s media items", error)
-                );
+        //utilizar LocalDate para datas
+        LocalDate start_80s = LocalDate.of(1980, 1, 1); // primeiro dia dos anos 80
+        LocalDate end_80s = LocalDate.of(1989, 12, 31); // ultimo dia dos anos 80
+        FileSink.write(resilience.call("GET /api/media/search", () -> webClient.get()
+                        // filtro por data e ordenacao por rating (decrescente) feitos no servidor, pelo indice de release_date
+                        .uri("/api/media/search?releasedFrom={from}&releasedTo={to}&sort=rating", start_80s, end_80s)
+                        .accept(streamType)
+                        .retrieve()
+                        .bodyToFlux(Media.class))
+                .map(media -> "Title: " + media.getTitle() + "; Rating: " + media.getAverageRating() + "; Release Date: " + media.getReleaseDate()),
+                filePaths[7])
+                .doOnSuccess(done -> logger.info("Completed fetching 1980s media items sorted by rating"))
+                .doOnTerminate(latch::countDown)
+                .subscribe(null, error -> logger.error("Error fetching 1980s media items", error));
     }
 
     //QUERIE 6: Metodo para obter média e desvio padrao
     private void averageAndStandardDeviation(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .reduce(new ArrayList<Double>(), (acc, media) -> {
-                    acc.add(media.getAverageRating().doubleValue()); // criar arraylist e colocar lá os ratings para os calculos
-                    return acc;
-                })
+        // Quantis, top 5 e titulos distintos no mesmo download partilhado de /api/media, com memoria limitada
+        // (t-digest, heap dos 5 maiores e HyperLogLog) em vez de guardar ou ordenar os ratings
+        Flux<Media> rated = media.filter(item -> item.getAverageRating() != null);
+        Mono<TDigest> ratingQuantiles = rated.collect(StreamingCollectors.quantiles(Media::getAverageRating, 100));
+        Mono<List<Media>> topRated = rated.collect(StreamingCollectors.topK(5, Comparator.comparing(Media::getAverageRating)));
+        Mono<Long> distinctTitles = media.collect(StreamingCollectors.distinctCount(Media::getTitle, 14));
+        FileSink.write(Mono.zip(mediaStats, ratingQuantiles, topRated, distinctTitles)
+                .flatMapIterable(results -> ratingStatistics(results.getT1(), results.getT2(), results.getT3(), results.getT4())),
+                filePaths[8])
                 .doOnTerminate(() -> {
                     logger.info("Completed calculating average and standard deviation of ratings");
                     latch.countDown(); 
                 })
-                .subscribe(
-                    list -> {
-                        int count = list.size();
-    
-                        if (count > 0) {
-                            // Passo 1: Calcular a média
-                            double sum = 0;
-                            for (Double rating : list) {
-                                sum += rating;
-                            }
-                            double average = sum / count;
-    
-                            // Passo 2: Calcular a soma dos quadrados das diferencas entre os ratings e a média para a variancia
-                            double sumSquares = 0;
-                            for (Double rating : list) {
-                                sumSquares += Math.pow(rating - average, 2);
-                            }
-    
-                            // Passo 3: Variancia e desvio padrao
-                            double variance = sumSquares / (count - 1);
-                            double standardDeviation = Math.sqrt(variance);
-    
-                            String result = String.format("Average Rating: %.2f, Standard Deviation: %.2f", average, standardDeviation);
-                            writeToFile(result, filePaths[8]);
-                        } else {
-                            writeToFile("No ratings available", filePaths[8]);
-                        }
-                    },
-                    error -> logger.error("Error calculating average and standard deviation of ratings", error)
-                );
+                .subscribe(null, error -> logger.error("Error calculating average and standard deviation of ratings", error));
+    }
+
+    private static List<String> ratingStatistics(MediaStats stats, TDigest quantiles, List<Media> topRated, long distinctTitles) {
+        if (stats.getTotalCount() == 0) {
+            return List.of("No ratings available");
+        }
+        List<String> lines = new ArrayList<>();
+        // média e desvio padrao (amostral) pelo algoritmo de Welford, sem guardar os ratings
+        double standardDeviation = stats.getRatingStandardDeviation() != null ? stats.getRatingStandardDeviation() : Double.NaN;
+        lines.add(String.format("Average Rating: %.2f, Standard Deviation: %.2f", stats.getAverageRating(), standardDeviation));
+        if (quantiles.size() > 0) {
+            lines.add(String.format("Rating Quantiles (approx.): p50 %.2f, p90 %.2f, p99 %.2f",
+                    quantiles.quantile(0.5), quantiles.quantile(0.9), quantiles.quantile(0.99)));
+        }
+        StringBuilder top = new StringBuilder("Top Rated:");
+        for (Media item : topRated) {
+            top.append(' ').append(item.getTitle()).append(" (").append(item.getAverageRating()).append(");");
+        }
+        lines.add(top.toString());
+        lines.add("Distinct Titles (approx.): " + distinctTitles);
+        return lines;
     }
 
     //QUERIE 7: Método para obter a media mais antiga
     private void getOldestMediaItem(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .sort((media1, media2) -> media1.getReleaseDate().compareTo(media2.getReleaseDate())) // Sort por datas de release
-                .next() // escolher o primeiro item, que vai ser o mais antigo
-                .doOnSuccess(media1 -> {
-                    logger.info("Sucess retrieving oldest media: {}", media1);
-                    latch.countDown(); 
-                })
-                .subscribe(
-                    oldestMedia -> {
-                        if (oldestMedia != null) {
-                            String result = "Oldest Media Item: " + oldestMedia.getTitle() + ", Release Date: " + oldestMedia.getReleaseDate();
-                            writeToFile(result, filePaths[9]);
-                        } else {
-                            writeToFile("No media available", filePaths[9]);
-                        }
-                    },
-                    error -> logger.error("Error fetching oldest media item", error)
-                );
+        FileSink.write(mediaStats
+                .doOnSuccess(stats -> logger.info("Sucess retrieving oldest media: {}", stats.getOldestTitle()))
+                .map(stats -> stats.getTotalCount() > 0
+                        ? "Oldest Media Item: " + stats.getOldestTitle() + ", Release Date: " + stats.getOldestReleaseDate()
+                        : "No media available"),
+                filePaths[9])
+                .doOnTerminate(latch::countDown)
+                .subscribe(null, error -> logger.error("Error fetching oldest media item", error));
     }
     
     //QUERIE 8: Metodo para obter o numero medio de users por media item
     private void averageNumberOfUsersPerMedia(CountDownLatch latch) {
-        // Obter primerio os media items 
-        webClient.get()
-                .uri("/api/media")
-                .retrieve()
-                .bodyToFlux(Media.class) 
-                .flatMap(media -> 
-                    webClient.get()  // Obter as relationships por cada media
-                        .uri("/api/relationships")
-                        .retrieve()
-                        .bodyToFlux(ConsumerMedia.class)
-                        .filter(relationship -> relationship.getMediaId().equals(media.getId()))  // Filtrar  relationships por mediaId
-                        .count()  //contar numero de users subscritos à media item
-                        .map(userCount -> new Object[]{media.getId(), userCount}))  // Retornar par de mediaId e user count
-                .reduce(new Object[]{0L, 0L}, (acc, mediaUserCount) -> {
-                    //juntar total de users e media
-                    acc[0] = (Long) acc[0] + (Long) mediaUserCount[1];  // Adicionar user count
-                    acc[1] = (Long) acc[1] + 1;  // Increment media count
-                    //logger.info("number of users: {}",acc[1]);
-                    //logger.info("number of Media: {}",acc[0]);
-                    return acc;  // Retornar result
-                    
-                })
+        // Numero de users por media calculado no servidor (GROUP BY); as medias sem users contam com 0
+        FileSink.write(Mono.zip(
+                subscriberCounts
+                        .reduce(0L, (acc, mediaUserCount) -> acc + mediaUserCount.getSubscriberCount()),  // total de users
+                mediaStats.map(MediaStats::getTotalCount))  // total de media items
+                .map(result -> {
+                    long totalUsers = result.getT1();
+                    long mediaCount = result.getT2();
+
+                    //Fazer calculo do numero medio de users por media item
+                    if (mediaCount > 0) {
+                        double averageUsers = (double) totalUsers / mediaCount;
+                        return String.format("Average number of users per media item: %.2f", averageUsers);
+                    }
+                    return "No media items found";
+                }),
+                filePaths[10])
                 .doOnTerminate(() -> {
                     logger.info("Completed calculating the average number of users per media item");
                     latch.countDown(); 
                 })
-                .subscribe(
-                    result -> {
-                        long totalUsers = (Long) result[0];
-                        long mediaCount = (Long) result[1];
-    
-                        //Fazer calculo do numero medio de users por media item
-                        if (mediaCount > 0) {
-                            double averageUsers = (double) totalUsers / mediaCount;
-                            String resultMessage = String.format("Average number of users per media item: %.2f", averageUsers);
-                            writeToFile(resultMessage, filePaths[10]);  
-                        } else {
-                            writeToFile("No media items found", filePaths[10]);
-                        }
-                    },
-                    error -> {
-                        logger.error("Error during subscription: ", error);
-                        latch.countDown();  
-                    }
-                );
+                .subscribe(null, error -> logger.error("Error during subscription: ", error));
     }
 
 
     //QUERIE 9: Nome e numero de users por media item, por order decrescente
     private void usersPerMediaSorted(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/media")
-                .retrieve()
-                .bodyToFlux(Media.class)  // obter media
-                .flatMap(media ->
-                    webClient.get()  // obter relacoes
-                            .uri("/api/relationships")
-                            .retrieve()
-                            .bodyToFlux(ConsumerMedia.class)  
-                            .filter(relationship -> relationship.getMediaId().equals(media.getId()))  // Filtar por mediaId
-                            .flatMap(relationship ->
-                                webClient.get()  // Por cada relationship, buscar a info do user (consumer)
-                                        .uri("/api/consumers/" + relationship.getConsumerId())  
-                                        .retrieve()
-                                        .bodyToMono(Consumer.class)  // Buscar info de cada user (Mono)
-                                        .map(consumer -> new Object[]{media, consumer}))  // Map dos media e consumer 
-                )
-                .groupBy(entry -> ((Media) entry[0]).getId())  // Group por mediaId (media.getId())
-                .flatMap(groupedFlux -> 
-                    groupedFlux
-                            .sort((entry1, entry2) -> {
-                                // Ordenar por idade 
-                                Consumer consumer1 = (Consumer) entry1[1];  
-                                Consumer consumer2 = (Consumer) entry2[1];  
-                                return consumer2.getAge().compareTo(consumer1.getAge());  //Ordenar por ordem decrescente
-                            })
-                            .map(user -> {
-                                Media media = (Media) user[0];  // buscar a media do par
-                                Consumer consumer = (Consumer) user[1];  // buscar consumer
-                                return new Object[]{media.getTitle(), consumer.getName(), consumer.getAge()};
-                            })
-                )
+        FileSink.write(resilience.call("GET /api/media/subscribers", () -> webClient.get()
+                        .uri("/api/media/subscribers")  // join e ordenacao (media, idade decrescente) feitos no servidor
+                        .accept(streamType)
+                        .retrieve()
+                        .bodyToFlux(MediaSubscriber.class))
+                .map(subscriber -> String.format("Media: %s, User: %s, Age: %d",
+                        subscriber.getMediaTitle(), subscriber.getConsumerName(), subscriber.getConsumerAge())),
+                filePaths[11])
                 .doOnTerminate(() -> {
                     logger.info("Completed fetching name and user count per media item, sorted by user age");
                     latch.countDown();  
                 })
-                .subscribe(
-                    result -> {
-                        String mediaTitle = (String) result[0];
-                        String consumerName = (String) result[1];
-                        int age = (Integer) result[2];
-    
-                        String resultMessage = String.format("Media: %s, User: %s, Age: %d", mediaTitle, consumerName, age);
-                        writeToFile(resultMessage, filePaths[11]);
-                    },
-                    error -> {
-                        logger.error("Error during subscription: ", error);
-                        latch.countDown();  
-                    }
-                );
+                .subscribe(null, error -> logger.error("Error during subscription: ", error));
     }
     
 
     //QUERIE 10: mostrar users e as medias a que estao associados
     private void usersAndTheirMedia(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/consumers")  
-                .retrieve()
-                .bodyToFlux(Consumer.class)  // buscar users
-                .flatMap(consumer ->
-                    webClient.get()  // buscar relacoes para cada user (consumer)
-                            .uri("/api/relationships")
-                            .retrieve()
-                            .bodyToFlux(ConsumerMedia.class)  
-                            .filter(relationship -> relationship.getConsumerId().equals(consumer.getId()))  // Filtrar por consumerId
-                            .flatMap(relationship ->
-                                webClient.get()  // para cada relacao, buscar a media a q o user esta subscrito (subscription)
-                                        .uri("/api/media/" + relationship.getMediaId())  
-                                        .retrieve()
-                                        .bodyToMono(Media.class)  
-                                        .map(media -> new Object[]{consumer, media}))  // Mapa para  consumer e a media 
-                )
+        // Indice mediaIds por consumerId (CSR de longs) e users, ambos lidos das fontes partilhadas
+        // (tem de subscrever as duas ja, antes do connectSources, para nao perder elementos)
+        Mono<LongMultimap> mediaIdsByConsumer = relationships
+                .collect(LongMultimap::builder, (builder, relationship) -> builder.add(relationship.getConsumerId(), relationship.getMediaId()))
+                .map(LongMultimap.Builder::build);
+
+        FileSink.write(Mono.zip(mediaIdsByConsumer, consumers.collectList())
+                // Buscar todas as medias subscritas num so pedido (lookup por lista de IDs)
+                .flatMapMany(tuple -> {
+                    long[] mediaIds = tuple.getT1().distinctValues();
+                    return lookupMedia(mediaIds)
+                            .collect(() -> new LongObjectMap<Media>(mediaIds.length), (byId, media) -> byId.put(media.getId(), media))
+                            .flatMapIterable(mediaById -> joinSubscribedMedia(tuple.getT2(), tuple.getT1(), mediaById));
+                })
+                .map(row -> String.format("User: %s, Media Subscribed: %s", row.getConsumer().getName(), row.getMedia().getTitle())),
+                filePaths[12])
                 .doOnTerminate(() -> {
                     logger.info("Completed fetching complete data for all users with their subscribed media");
                     latch.countDown();  
                 })
-                .subscribe(
-                    result -> {
-                        Consumer consumer = (Consumer) result[0];  
-                        Media media = (Media) result[1];  
-    
-                        
-                        String resultMessage = String.format("User: %s, Media Subscribed: %s", consumer.getName(), media.getTitle());
-                        writeToFile(resultMessage, filePaths[12]);  
-                    },
-                    error -> {
-                        logger.error("Error during subscription: ", error);
-                        latch.countDown();  
-                    }
-                );
+                .subscribe(null, error -> logger.error("Error during subscription: ", error));
+    }
+
+    // Hash join users -> relacoes -> media em O(users + relacoes), pela ordem dos users
+    private static List<SubscribedMedia> joinSubscribedMedia(List<Consumer> consumers, LongMultimap mediaIdsByConsumer,
+                                                             LongObjectMap<Media> mediaById) {
+        List<SubscribedMedia> rows = new ArrayList<>(mediaIdsByConsumer.size());
+        for (Consumer consumer : consumers) {
+            mediaIdsByConsumer.forEach(consumer.getId(), mediaId -> {
+                Media media = mediaById.get(mediaId);  // media a q o user esta subscrito (subscription)
+                if (media != null) {
+                    rows.add(new SubscribedMedia(consumer, media));
+                }
+            });
+        }
+        return rows;
+    }
+
+    // Buscar varias medias num unico pedido (POST so de leitura: pode ser repetido)
+    private Flux<Media> lookupMedia(long[] ids) {
+        return resilience.call("POST /api/media/lookup", () -> webClient.post()
+                .uri("/api/media/lookup")
+                .bodyValue(ids)
+                .accept(streamType)
+                .retrieve()
+                .bodyToFlux(Media.class));
     }
 
 
     //Metodo das simulacoes de falhas no servidor
     private void fetchMediaWithRetries(CountDownLatch latch) {
-        webClient.get()
-                .uri("/api/media/test") 
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .map(media -> String.format("Title: %s, Date: %s", media.getTitle(), media.getReleaseDate()))
-                .retryWhen(
-                    Retry.fixedDelay(3, Duration.ofSeconds(2)) // Retry 3 vezes (com 2 segundos de delay)
-                         .doBeforeRetry(retrySignal -> logger.warn("Retrying due to network error... Attempt: {}", retrySignal.totalRetries() + 1))
-                )
+        // Retry com backoff exponencial e jitter (ver Resilience); com o circuito aberto falha logo, sem mais pedidos
+        FileSink.write(resilience.call("GET /api/media/test", () -> webClient.get()
+                        .uri("/api/media/test")
+                        .retrieve()
+                        .bodyToFlux(Media.class))
+                .map(media -> String.format("Title: %s, Date: %s", media.getTitle(), media.getReleaseDate())),
+                filePaths[13])
                 .doOnTerminate(() -> {
                     logger.info("Retry logic");
                     latch.countDown(); 
                 })
-                .subscribe(
-                    mediaTitles -> {
-                        if (mediaTitles.isEmpty()) {
-                            writeToFile("No media items found", filePaths[1]);
-                        } else {
-                            writeToFile(String.join("\n", mediaTitles), filePaths[13]);
-                        }
-                    },
-                    error -> {
-                        logger.error("Failed to fetch media after 3 attempts: ", error);
-                        latch.countDown(); 
-                    }
-                );
+                .subscribe(null, error -> logger.error("Failed to fetch media after retries: ", error));
     }
     
     
@@ -436,30 +361,25 @@ public class ReactiveClientApplication {
     
 
 
-    // Método para escrever no ficheiro
-    private void writeToFile(String string, String filePath) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) { 
-            writer.write(string);
-            writer.newLine();
-        } catch (IOException e) {
-            logger.error("Failed to write media title to file", e);
+    public static void main(String[] args) {
+        String baseUrl = "http://localhost:8080"; //url e port
+
+        // Metricas do transporte (reactor.netty.*) guardadas em memoria para o resumo no fim
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+
+        // Modo de carga: ReactiveClientApplication load --rps=200 --duration=60s ... (ver LoadTestOptions)
+        if (args.length > 0 && args[0].equals("load")) {
+            new LoadGenerator(baseUrl, LoadTestOptions.parse(Arrays.copyOfRange(args, 1, args.length))).run();
+            return;
         }
-    }
 
-    private void clearFiles() {
-        for (String filePath : filePaths) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, false))) { 
-                writer.write("");  // Clear the file by writing an empty string
-                logger.info("Cleared file: {}", filePath);
-            } catch (IOException e) {
-                logger.error("Failed to clear file: {}", filePath, e);
-            }
+        // Modo watch: ReactiveClientApplication watch --table=media --duration=10m ... (ver ChangeFeedWatcher)
+        if (args.length > 0 && args[0].equals("watch")) {
+            ChangeFeedWatcher.parse(baseUrl, Arrays.copyOfRange(args, 1, args.length)).run();
+            return;
         }
-    }
 
-    public static void main(String[] args) {
-        String baseUrl = "http://localhost:8080"; //url e port
-        
 
         //Definir os caminhos para um folder com os ficheiros de texto
         String[] filePaths = {
@@ -479,12 +399,37 @@ public class ReactiveClientApplication {
             "demo/src/outputs/serverError_titles_and_dates.txt",
         };
 
-        WebClient.Builder webClientBuilder = WebClient.builder();
-        ReactiveClientApplication clientApp = new ReactiveClientApplication(webClientBuilder, baseUrl, filePaths);
-
-        logger.info("Starting CLIENT");
+        // Opcoes no formato --nome=valor: de transporte (--http2=true, --max-connections=16, ... ver TransportOptions)
+        // e de resiliencia (--request-timeout=10s, --max-retries=3, --hedging=false, ... ver Resilience).
+        // --http-cache=<pasta> muda a pasta da cache de respostas (ETag) e --http-cache=false desliga-a
+        TransportOptions transport = new TransportOptions();
+        Resilience resilience = new Resilience();
+        String httpCacheDirectory = "demo/.http-cache";
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            if (name.equals("http-cache")) {
+                httpCacheDirectory = value.equals("false") ? null : value;
+            } else if (!transport.apply(name, value) && !resilience.apply(name, value)) {
+                throw new IllegalArgumentException("Unknown client option: " + arg);
+            }
+        }
+        WebClient.Builder webClientBuilder = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(transport.createHttpClient("client", MAX_CONNECTIONS)))
+                .codecs(SmileCodecs::register);
+        // Tabelas sem alteracoes desde a ultima execucao custam um pedido com resposta 304, sem corpo
+        HttpResponseCache httpCache = httpCacheDirectory != null ? new HttpResponseCache(Path.of(httpCacheDirectory)) : null;
+        if (httpCache != null) {
+            webClientBuilder.filter(httpCache);
+        }
+        ReactiveClientApplication clientApp = new ReactiveClientApplication(webClientBuilder, baseUrl, filePaths, resilience,
+                transport.getStreamingMediaType());
 
-        clientApp.clearFiles();
+        logger.info("Starting CLIENT ({}; {})", transport.describe(), resilience.describe());
 
         CountDownLatch latch = new CountDownLatch(14); // Criar um latch para se esperar a execução das tarefas
 
@@ -528,6 +473,9 @@ public class ReactiveClientApplication {
 
         clientApp.fetchMediaWithRetries(latch);
 
+        // Todas as queries ja subscreveram as fontes partilhadas: um unico download por endpoint
+        clientApp.connectSources();
+
         // Esperar que o latch chegue a 0 
         try {
             latch.await(); 
@@ -535,6 +483,7 @@ public class ReactiveClientApplication {
             logger.error("Main thread interrupted while waiting", e);
         }
 
-        logger.info("Finished all operations.");
+        logger.info("Finished all operations. Transport:\n{}Resilience:\n{}{}", TransportOptions.metricsSummary(meterRegistry), resilience.summary(),
+                httpCache != null ? httpCache.summary() : "HTTP cache disabled");
     }
 }
@@ -0,0 +1,99 @@
+package com.project.demo.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.project.demo.dto.CacheStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache read-through assincrona de entidades por ID, limitada em tamanho e com TTL.
+ * Cada entrada guarda o future do carregamento, por isso pedidos concorrentes ao mesmo ID partilham uma unica query.
+ * Os carregamentos vazios (entidade inexistente) ou com erro nao ficam em cache.
+ * As entidades em cache sao partilhadas entre pedidos e nao devem ser alteradas.
+ * Como MeterBinder, exporta as metricas cache.* (gets por resultado hit/miss, evictions, size) com o tag cache=name.
+ */
+public class EntityCache<V> implements MeterBinder {
+
+    private final String name;
+
+    private final AsyncCache<Long, V> cache;
+
+    public EntityCache(String name, long maximumSize, Duration timeToLive) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Obter a entidade da cache ou carrega-la com o loader (sem bloquear)
+     * @param id - ID da entidade
+     * @param loader - query a executar em caso de miss
+     * @return Mono com a entidade, vazio se nao existir
+     */
+    public Mono<V> get(Long id, Function<Long, Mono<V>> loader) {
+        // suppressCancel: o cancelamento de um subscriber nao cancela o carregamento partilhado.
+        // O carregamento corre com o Context do pedido que o iniciou (ex: debug de SQL)
+        return Mono.deferContextual(context -> Mono.fromFuture(
+                () -> cache.get(id, (key, executor) -> loader.apply(key).contextWrite(context).toFuture()), true));
+    }
+
+    /**
+     * Remover a entidade da cache, incluindo um carregamento ainda em curso.
+     * Deve ser chamado depois da escrita na base de dados: um carregamento iniciado antes da escrita
+     * deixa de estar associado ao ID e o seu resultado ja nao pode voltar a entrar na cache.
+     * @param id - ID da entidade alterada ou apagada
+     */
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Invalidar o ID quando a escrita termina, antes de o resultado seguir para o cliente
+     * (um pedido feito logo a seguir a resposta ja nao encontra a entrada antiga). Tambem invalida se a escrita for cancelada,
+     * porque a alteracao pode ter chegado a base de dados
+     * @param id - ID da entidade escrita
+     * @param write - operacao de escrita
+     * @return Mono com o resultado da escrita
+     */
+    public <T> Mono<T> invalidateAfter(Long id, Mono<T> write) {
+        return write.doOnEach(signal -> invalidate(id))
+                .doOnCancel(() -> invalidate(id));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Obter os contadores de hits, misses e evictions da cache
+     * @return estatisticas acumuladas desde o arranque
+     */
+    public CacheStatistics statistics() {
+        CacheStats stats = cache.synchronous().stats();
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setName(name);
+        statistics.setSize(cache.synchronous().estimatedSize());
+        statistics.setHits(stats.hitCount());
+        statistics.setMisses(stats.missCount());
+        statistics.setHitRate(stats.hitRate());
+        statistics.setEvictions(stats.evictionCount());
+        statistics.setLoadFailures(stats.loadFailureCount());
+        return statistics;
+    }
+}
@@ -0,0 +1,70 @@
+package com.project.demo.cache;
+
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Versao de cada tabela, incrementada pelas escritas dos services, para ETags sem consultar a base de dados.
+ * As versoes estao em memoria e recomecam a cada arranque, por isso o ETag inclui tambem o instante de arranque (epoch).
+ * Escritas feitas fora da API (SQL direto, outra instancia) nao alteram as versoes.
+ * A versao e incrementada depois de a escrita terminar e o ETag deve ser calculado antes de a leitura comecar:
+ * uma resposta com a versao nova ja foi lida depois da escrita (no pior caso uma resposta com dados novos fica com o ETag antigo
+ * e e descarregada outra vez)
+ */
+@Component
+public class TableVersions {
+
+    public enum Table { MEDIA, CONSUMER, CONSUMER_MEDIA }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLongArray versions = new AtomicLongArray(Table.values().length);
+
+    public void bump(Table table) {
+        versions.incrementAndGet(table.ordinal());
+    }
+
+    public long version(Table table) {
+        return versions.get(table.ordinal());
+    }
+
+    /**
+     * Obter o ETag (forte) do estado atual das tabelas
+     * @param tables - tabelas de que a resposta depende
+     * @return ETag entre aspas, por exemplo "m2x0k1a-3-0"
+     */
+    public String etag(Table... tables) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        for (Table table : tables) {
+            etag.append('-').append(version(table));
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Incrementar a versao da tabela quando a escrita termina (antes de o resultado seguir para o cliente),
+     * tambem com erro ou cancelamento, porque a alteracao pode ter chegado a base de dados
+     * @param table - tabela escrita
+     * @param write - operacao de escrita
+     * @return Mono com o resultado da escrita
+     */
+    public <T> Mono<T> bumpAfter(Table table, Mono<T> write) {
+        return write.doOnEach(signal -> bump(table))
+                .doOnCancel(() -> bump(table));
+    }
+
+    /**
+     * Como {@link #bumpAfter(Table, Mono)}, para escritas em lote: incrementa a cada linha escrita e no fim
+     * @param table - tabela escrita
+     * @param write - operacao de escrita
+     * @return Flux com o resultado da escrita
+     */
+    public <T> Flux<T> bumpAfter(Table table, Flux<T> write) {
+        return write.doOnEach(signal -> bump(table))
+                .doOnCancel(() -> bump(table));
+    }
+}
@@ -0,0 +1,187 @@
+package com.project.demo.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.project.demo.codec.SmileCodecs;
+import com.project.demo.dto.ChangeEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Modo watch do cliente: mantem uma copia local de uma tabela atualizada pelo feed /api/{tabela}/changes, sem voltar a
+ * descarregar a colecao a cada alteracao. Opcoes no formato --nome=valor: --table (media, consumers ou relationships),
+ * --duration (tempo a acompanhar), --idle-timeout (sem eventos nem HEARTBEAT durante este tempo a conexao e dada como perdida),
+ * mais as opcoes de transporte de {@link TransportOptions} (por exemplo --format=smile).
+ * A colecao so e carregada no arranque e depois de um RESYNC; numa conexao perdida o feed e retomado com since
+ */
+public class ChangeFeedWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedWatcher.class);
+
+    private static final ParameterizedTypeReference<ChangeEvent<JsonNode>> EVENT_TYPE = new ParameterizedTypeReference<>() {};
+
+    private static final Set<String> TABLES = Set.of("media", "consumers", "relationships");
+
+    private final WebClient webClient;
+
+    private final MediaType streamType;
+
+    private final String table;
+
+    private final Duration duration;
+
+    private final Duration idleTimeout;
+
+    // Copia local da tabela, pela chave dos eventos (ID, ou "consumerId:mediaId" nas relacoes); so e usada pela cadeia do feed
+    private final Map<String, JsonNode> rows = new HashMap<>();
+
+    private Long since; // null: a copia local tem de ser (re)carregada
+
+    private long applied;
+
+    private long reloads;
+
+    private long reconnects;
+
+    private ChangeFeedWatcher(String baseUrl, TransportOptions transport, String table, Duration duration, Duration idleTimeout) {
+        this.webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(transport.createHttpClient("watch", 2)))
+                .codecs(SmileCodecs::register)
+                .build();
+        this.streamType = transport.getStreamingMediaType();
+        this.table = table;
+        this.duration = duration;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Ler as opcoes dos argumentos da linha de comandos
+     * @param baseUrl - URL do servidor
+     * @param args - argumentos --nome=valor
+     * @return watcher pronto a executar
+     */
+    public static ChangeFeedWatcher parse(String baseUrl, String[] args) {
+        TransportOptions transport = new TransportOptions();
+        String table = "media";
+        Duration duration = Duration.ofMinutes(10);
+        Duration idleTimeout = Duration.ofSeconds(45);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "table" -> table = value;
+                case "duration" -> duration = DurationStyle.detectAndParse(value);
+                case "idle-timeout" -> idleTimeout = DurationStyle.detectAndParse(value);
+                default -> {
+                    if (!transport.apply(arg.substring(2, separator), value)) {
+                        throw new IllegalArgumentException("Unknown watch option: " + arg);
+                    }
+                }
+            }
+        }
+        if (!TABLES.contains(table)) {
+            throw new IllegalArgumentException("--table must be one of " + TABLES);
+        }
+        return new ChangeFeedWatcher(baseUrl, transport, table, duration, idleTimeout);
+    }
+
+    /**
+     * Acompanhar a tabela durante --duration, voltando a ligar (com backoff) sempre que o feed termina ou a conexao cai
+     */
+    public void run() {
+        logger.info("Watching /api/{}/changes for {} ({})", table, duration, streamType);
+        Flux.defer(this::session)
+                .doOnError(error -> {
+                    reconnects++;
+                    logger.warn("Change feed for {} lost ({}), resuming after sequence {}", table, error.toString(), since);
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)).transientErrors(true))
+                .repeat()
+                .take(duration)
+                .blockLast();
+        logger.info("Stopped watching {}: {} rows, {} changes applied, {} reloads, {} reconnects", table, rows.size(), applied,
+                reloads, reconnects);
+    }
+
+    // Uma conexao ao feed. Sem since, o HEARTBEAT inicial marca o ponto a partir do qual os eventos sao aplicados
+    // e a colecao e carregada so depois dele: uma alteracao feita durante a carga chega pelo feed e nao se perde
+    private Flux<ChangeEvent<JsonNode>> session() {
+        Flux<ChangeEvent<JsonNode>> changes = webClient.get()
+                .uri(uri -> uri.path("/api/{table}/changes").queryParamIfPresent("since", Optional.ofNullable(since)).build(table))
+                .accept(streamType)
+                .retrieve()
+                .bodyToFlux(EVENT_TYPE)
+                .timeout(idleTimeout);
+        return changes.switchOnFirst((first, events) -> {
+            if (since != null || !first.hasValue()) {
+                return events.doOnNext(this::apply);
+            }
+            return reload().thenMany(events.doOnNext(this::apply));
+        });
+    }
+
+    private Mono<Void> reload() {
+        long start = System.nanoTime();
+        rows.clear();
+        return webClient.get()
+                .uri("/api/{table}", table)
+                .accept(streamType)
+                .retrieve()
+                .bodyToFlux(JsonNode.class)
+                .doOnNext(row -> rows.put(keyOf(row), row))
+                .doOnComplete(() -> {
+                    reloads++;
+                    logger.info("Loaded {} {} rows in {} ms", rows.size(), table, (System.nanoTime() - start) / 1_000_000);
+                })
+                .then();
+    }
+
+    private void apply(ChangeEvent<JsonNode> event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> {
+                rows.put(event.getKey(), event.getEntity());
+                applied++;
+                logger.info("{} {} {} (sequence {}, {} rows)", table, event.getKey(), event.getType(), event.getSequence(), rows.size());
+            }
+            case DELETED -> {
+                rows.remove(event.getKey());
+                applied++;
+                logger.info("{} {} DELETED (sequence {}, {} rows)", table, event.getKey(), event.getSequence(), rows.size());
+            }
+            case RESYNC -> {
+                // Eventos perdidos (cliente lento ou since fora do historico): o feed termina e a proxima conexao recarrega
+                logger.warn("Change feed for {} asked for a resync at sequence {}", table, event.getSequence());
+                since = null;
+                return;
+            }
+            case HEARTBEAT -> logger.debug("Heartbeat for {} at sequence {}", table, event.getSequence());
+        }
+        since = event.getSequence();
+    }
+
+    private String keyOf(JsonNode row) {
+        if (table.equals("relationships")) {
+            return row.path("consumerId").asText() + ":" + row.path("mediaId").asText();
+        }
+        return row.path("id").asText();
+    }
+}
@@ -0,0 +1,133 @@
+package com.project.demo.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker por endpoint, com janela dos ultimos N resultados:
+ * CLOSED deixa passar os pedidos; quando a taxa de falhas da janela passa o limite (com um minimo de pedidos) passa a OPEN
+ * e rejeita logo os pedidos durante openDuration, sem carga no servidor; depois fica HALF_OPEN e deixa passar um unico
+ * pedido de teste, que fecha o circuito se tiver sucesso ou volta a abri-lo se falhar
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+
+    private final int minimumCalls;
+
+    private final double failureRateThreshold;
+
+    private final long openDurationNanos;
+
+    // Ultimos resultados (true = falha), em buffer circular
+    private final boolean[] window;
+
+    private int windowCount;
+
+    private int windowNext;
+
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration) {
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Pedir autorizacao para um pedido
+     * @throws OpenException se o circuito estiver aberto (ou ja houver um pedido de teste em curso)
+     */
+    public synchronized void acquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+            throw new OpenException(name);
+        }
+        if (state == State.HALF_OPEN) {
+            trialInFlight = true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            transition(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * Pedido cancelado sem resultado (por exemplo o pedido mais lento de um hedge): liberta o pedido de teste
+     */
+    public synchronized void onCancel() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            windowFailures -= window[windowNext] ? 1 : 0;
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failure;
+        windowFailures += failure ? 1 : 0;
+        windowNext = (windowNext + 1) % window.length;
+    }
+
+    private void transition(State next) {
+        logger.warn("Circuit breaker {}: {} -> {}", name, state, next);
+        state = next;
+        trialInFlight = false;
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (next == State.CLOSED) {
+            windowCount = 0;
+            windowNext = 0;
+            windowFailures = 0;
+        }
+    }
+
+    /**
+     * Pedido rejeitado sem chegar ao servidor porque o circuito esta aberto
+     */
+    public static class OpenException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public OpenException(String name) {
+            super("Circuit breaker " + name + " is open");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.project.demo.client;
+
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Escrita das linhas de uma query num ficheiro, fora das threads do event loop do cliente HTTP.
+ *
+ * O ficheiro fica aberto (um FileChannel) enquanto a query corre; as linhas sao agrupadas em lotes e cada lote e
+ * escrito numa unica chamada, numa thread do scheduler "file-sink". Apenas alguns lotes ficam em espera: se o disco
+ * for mais lento, o pedido de elementos ao Flux de origem abranda (backpressure). O ficheiro e fechado quando a
+ * query termina (com sucesso, erro ou cancelamento), antes de o Mono devolvido completar.
+ */
+public final class FileSink {
+
+    private static final int BATCH_LINES = 4096;
+
+    // Lotes em espera por ficheiro antes de parar de pedir linhas
+    private static final int PENDING_BATCHES = 2;
+
+    private static final Scheduler SCHEDULER = Schedulers.newBoundedElastic(4, Integer.MAX_VALUE, "file-sink", 60, true);
+
+    private FileSink() {
+    }
+
+    /**
+     * Escrever as linhas num ficheiro, substituindo o conteudo anterior
+     * @param lines - linhas a escrever (sem o separador)
+     * @param file - caminho do ficheiro
+     * @return Mono que completa depois de todas as linhas estarem escritas e o ficheiro fechado
+     */
+    public static Mono<Void> write(Publisher<String> lines, String file) {
+        return Mono.using(
+                () -> open(Path.of(file)),
+                channel -> Flux.from(lines)
+                        .buffer(BATCH_LINES)
+                        .publishOn(SCHEDULER, PENDING_BATCHES)
+                        .doOnNext(batch -> writeBatch(channel, batch))
+                        .then(),
+                FileSink::close);
+    }
+
+    // A pasta dos outputs (demo/src/outputs) nao esta no repositorio: e criada na primeira escrita
+    private static FileChannel open(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void writeBatch(FileChannel channel, List<String> batch) {
+        StringBuilder text = new StringBuilder(batch.size() * 64);
+        for (String line : batch) {
+            text.append(line).append(System.lineSeparator());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void close(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
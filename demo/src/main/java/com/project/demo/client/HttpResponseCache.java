@@ -0,0 +1,219 @@
+package com.project.demo.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache em disco das respostas GET com ETag, por URL e Accept: se houver uma copia, o pedido leva If-None-Match
+ * e um 304 e servido a partir do ficheiro (uma tabela sem alteracoes custa um round trip sem corpo).
+ * As respostas 200 com ETag sao gravadas enquanto sao lidas (sem as guardar em memoria) e so substituem a copia
+ * anterior quando terminam. Cada entrada e um ficheiro com duas linhas de cabecalho (ETag e Content-Type) seguidas do corpo
+ */
+public class HttpResponseCache implements ExchangeFilterFunction {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpResponseCache.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_HEADER_SIZE = 1024;
+
+    private final Path directory;
+
+    private final AtomicLong notModified = new AtomicLong();
+
+    private final AtomicLong downloaded = new AtomicLong();
+
+    public HttpResponseCache(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET) {
+            return next.exchange(request);
+        }
+        Path file = directory.resolve(key(request) + ".cache");
+        // Leitura do cabecalho (bloqueante, mas pequena) fora do event loop
+        return Mono.fromCallable(() -> Optional.ofNullable(Entry.read(file)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(entry -> next.exchange(entry
+                                .map(cached -> ClientRequest.from(request).header(HttpHeaders.IF_NONE_MATCH, cached.etag).build())
+                                .orElse(request))
+                        .flatMap(response -> {
+                            if (entry.isPresent() && response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                                notModified.incrementAndGet();
+                                logger.info("{} not modified, served from {}", request.url(), file);
+                                return response.releaseBody().thenReturn(fromCache(response, file, entry.get()));
+                            }
+                            String etag = response.headers().asHttpHeaders().getETag();
+                            if (!response.statusCode().is2xxSuccessful() || etag == null || etag.startsWith("W/")) {
+                                return Mono.just(response);
+                            }
+                            return Mono.just(store(response, etag, file));
+                        }));
+    }
+
+    /**
+     * @return numero de respostas 304 (servidas da cache) e de respostas completas gravadas
+     */
+    public String summary() {
+        return "HTTP cache " + directory + ": " + notModified.get() + " not modified, " + downloaded.get() + " downloaded";
+    }
+
+    private ClientResponse fromCache(ClientResponse response, Path file, Entry entry) {
+        Flux<DataBuffer> body = DataBufferUtils.readAsynchronousFileChannel(
+                () -> AsynchronousFileChannel.open(file, StandardOpenOption.READ),
+                entry.bodyOffset, DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE);
+        return ClientResponse.create(HttpStatus.OK, response.strategies())
+                .headers(headers -> {
+                    headers.setETag(entry.etag);
+                    if (!entry.contentType.isEmpty()) {
+                        headers.setContentType(MediaType.parseMediaType(entry.contentType));
+                    }
+                })
+                .request(response.request())
+                .body(body)
+                .build();
+    }
+
+    // O corpo e copiado para um ficheiro temporario a medida que e lido e movido para o lugar da entrada no fim
+    private ClientResponse store(ClientResponse response, String etag, Path file) {
+        MediaType contentType = response.headers().contentType().orElse(null);
+        byte[] header = (etag + "\n" + (contentType != null ? contentType : "") + "\n").getBytes(StandardCharsets.UTF_8);
+        return response.mutate()
+                .body(body -> Flux.usingWhen(
+                        // Criar e escrever o ficheiro temporario bloqueia: fora do event loop, como a leitura das entradas
+                        Mono.fromCallable(() -> Download.open(directory, header)).subscribeOn(Schedulers.boundedElastic()),
+                        download -> DataBufferUtils.write(body, download.channel, header.length)
+                                .concatWith(Mono.<DataBuffer>fromRunnable(() -> {
+                                    download.commit(file);
+                                    downloaded.incrementAndGet();
+                                }).subscribeOn(Schedulers.boundedElastic())),
+                        download -> Mono.fromRunnable(download::discard).subscribeOn(Schedulers.boundedElastic())))
+                .build();
+    }
+
+    private static String key(ClientRequest request) {
+        String accept = String.join(",", request.headers().getOrEmpty(HttpHeaders.ACCEPT));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((request.url() + " " + accept).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final String etag;
+
+        private final String contentType;
+
+        private final long bodyOffset;
+
+        private Entry(String etag, String contentType, long bodyOffset) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.bodyOffset = bodyOffset;
+        }
+
+        // null se nao houver entrada valida
+        private static Entry read(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            ByteBuffer prefix = ByteBuffer.allocate(MAX_HEADER_SIZE);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (prefix.hasRemaining() && channel.read(prefix) > 0) {
+                    // ler ate MAX_HEADER_SIZE bytes
+                }
+            }
+            String text = new String(prefix.array(), 0, prefix.position(), StandardCharsets.UTF_8);
+            int first = text.indexOf('\n');
+            int second = first < 0 ? -1 : text.indexOf('\n', first + 1);
+            if (second < 0) {
+                return null;
+            }
+            long offset = text.substring(0, second + 1).getBytes(StandardCharsets.UTF_8).length;
+            return new Entry(text.substring(0, first), text.substring(first + 1, second), offset);
+        }
+    }
+
+    private static final class Download {
+
+        private final Path temp;
+
+        private final AsynchronousFileChannel channel;
+
+        private boolean committed;
+
+        private Download(Path temp, AsynchronousFileChannel channel) {
+            this.temp = temp;
+            this.channel = channel;
+        }
+
+        private static Download open(Path directory, byte[] header) throws IOException {
+            Path temp = Files.createTempFile(directory, "download-", ".tmp");
+            Files.write(temp, header);
+            return new Download(temp, AsynchronousFileChannel.open(temp, StandardOpenOption.WRITE));
+        }
+
+        private void commit(Path file) {
+            try {
+                channel.close();
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                committed = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Resposta incompleta (erro ou cancelamento): a copia anterior fica como estava
+        private void discard() {
+            try {
+                channel.close();
+                if (!committed) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to discard partial download {}: {}", temp, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.project.demo.client;
+
+import com.project.demo.entity.Consumer;
+import com.project.demo.entity.Media;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * IDs existentes de media e consumidores, lidos uma vez antes do teste, para os pedidos por ID
+ */
+class LoadData {
+
+    private final long[] mediaIds;
+
+    private final long[] consumerIds;
+
+    private LoadData(long[] mediaIds, long[] consumerIds) {
+        this.mediaIds = mediaIds;
+        this.consumerIds = consumerIds;
+    }
+
+    static Mono<LoadData> fetch(WebClient webClient) {
+        Mono<long[]> mediaIds = webClient.get().uri("/api/media")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(Media.class)
+                .map(Media::getId)
+                .collectList()
+                .map(ids -> ids.stream().mapToLong(Long::longValue).toArray());
+        Mono<long[]> consumerIds = webClient.get().uri("/api/consumers")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(Consumer.class)
+                .map(Consumer::getId)
+                .collectList()
+                .map(ids -> ids.stream().mapToLong(Long::longValue).toArray());
+        return Mono.zip(mediaIds, consumerIds, LoadData::new)
+                .filter(data -> data.mediaIds.length > 0 && data.consumerIds.length > 0)
+                .switchIfEmpty(Mono.error(new IllegalStateException("The load test needs at least one media and one consumer")));
+    }
+
+    long randomMediaId() {
+        return mediaIds[ThreadLocalRandom.current().nextInt(mediaIds.length)];
+    }
+
+    long randomConsumerId() {
+        return consumerIds[ThreadLocalRandom.current().nextInt(consumerIds.length)];
+    }
+}
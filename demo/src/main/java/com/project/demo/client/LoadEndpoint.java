@@ -0,0 +1,129 @@
+package com.project.demo.client;
+
+import com.project.demo.entity.Media;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pedidos do modo de carga, com o peso de cada um no mix por defeito (leituras, escritas e relacoes).
+ * Cada pedido le a resposta completa e devolve apenas o estado HTTP.
+ * As escritas alteram a base de dados (create-media insere linhas, patch-media muda ratings): usar uma base de dados de teste
+ */
+public enum LoadEndpoint {
+
+    MEDIA_BY_ID("media-by-id", 30) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            return exchange(webClient.get().uri("/api/media/{id}", data.randomMediaId()));
+        }
+    },
+    CONSUMER_BY_ID("consumer-by-id", 15) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            return exchange(webClient.get().uri("/api/consumers/{id}", data.randomConsumerId()));
+        }
+    },
+    MEDIA_PAGE("media-page", 10) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            return exchange(webClient.get().uri("/api/media?limit=100&after={after}", data.randomMediaId()));
+        }
+    },
+    MEDIA_STATS("media-stats", 3) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            return exchange(webClient.get().uri("/api/media/stats"));
+        }
+    },
+    MEDIA_SUBSCRIBERS("media-subscribers", 5) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            return exchange(webClient.get().uri("/api/media/{id}/subscribers", data.randomMediaId())
+                    .accept(MediaType.APPLICATION_NDJSON));
+        }
+    },
+    RELATIONSHIPS_BY_MEDIA("relationships-by-media", 15) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            return exchange(webClient.get().uri("/api/relationships?mediaId={id}", data.randomMediaId())
+                    .accept(MediaType.APPLICATION_NDJSON));
+        }
+    },
+    RELATIONSHIPS_BY_CONSUMER("relationships-by-consumer", 10) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            return exchange(webClient.get().uri("/api/relationships?consumerId={id}", data.randomConsumerId())
+                    .accept(MediaType.APPLICATION_NDJSON));
+        }
+    },
+    SUBSCRIBER_COUNTS("subscriber-counts", 2) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            return exchange(webClient.get().uri("/api/relationships/counts").accept(MediaType.APPLICATION_NDJSON));
+        }
+    },
+    CREATE_MEDIA("create-media", 5) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            Media media = new Media();
+            media.setTitle("Load test media");
+            media.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(9000)));
+            media.setAverageRating((short) ThreadLocalRandom.current().nextInt(11));
+            media.setType("movie");
+            return exchange(webClient.post().uri("/api/media").bodyValue(media));
+        }
+    },
+    PATCH_MEDIA("patch-media", 5) {
+        @Override
+        Mono<HttpStatusCode> send(WebClient webClient, LoadData data) {
+            return exchange(webClient.patch().uri("/api/media/{id}", data.randomMediaId())
+                    .bodyValue(Map.of("averageRating", ThreadLocalRandom.current().nextInt(11))));
+        }
+    };
+
+    private final String endpointName;
+
+    private final int defaultWeight;
+
+    LoadEndpoint(String endpointName, int defaultWeight) {
+        this.endpointName = endpointName;
+        this.defaultWeight = defaultWeight;
+    }
+
+    abstract Mono<HttpStatusCode> send(WebClient webClient, LoadData data);
+
+    private static Mono<HttpStatusCode> exchange(WebClient.RequestHeadersSpec<?> request) {
+        // releaseBody consome a resposta toda: a latencia inclui a leitura do corpo
+        return request.exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()));
+    }
+
+    public String getEndpointName() {
+        return endpointName;
+    }
+
+    static LoadEndpoint byName(String name) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.endpointName.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint '" + name + "', expected one of "
+                        + Arrays.stream(values()).map(LoadEndpoint::getEndpointName).toList()));
+    }
+
+    static Map<LoadEndpoint, Integer> defaultMix() {
+        Map<LoadEndpoint, Integer> mix = new LinkedHashMap<>();
+        for (LoadEndpoint endpoint : values()) {
+            mix.put(endpoint, endpoint.defaultWeight);
+        }
+        return mix;
+    }
+}
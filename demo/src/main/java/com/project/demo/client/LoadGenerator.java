@@ -0,0 +1,228 @@
+package com.project.demo.client;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga HTTP com histogramas de latencia (HdrHistogram, em microssegundos).
+ *
+ * Em loop aberto (--rps) cada pedido tem um instante planeado (inicio + i / rps) e a latencia e medida a partir desse instante,
+ * nao do envio: se o servidor (ou o limite --concurrency) atrasar os envios, a espera conta na latencia
+ * (correcao de coordinated omission). Em loop fechado (so --concurrency) cada cliente envia o pedido seguinte quando
+ * recebe a resposta e a latencia e o tempo de servico, sem essa correcao.
+ * Os pedidos planeados durante o aquecimento sao enviados mas nao entram nos resultados.
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    // Estado registado para erros de rede e timeouts (sem resposta do servidor)
+    private static final HttpStatusCode FAILED = HttpStatusCode.valueOf(599);
+
+    private final LoadTestOptions options;
+
+    private final WebClient webClient;
+
+    private final List<EndpointStats> stats = new ArrayList<>();
+
+    private final int[] cumulativeWeights;
+
+    public LoadGenerator(String baseUrl, LoadTestOptions options) {
+        this.options = options;
+        // Por defeito tantas conexoes quanto o maximo de pedidos em curso, para o limite ser o do gerador e nao o do pool
+        this.webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(options.getTransport().createHttpClient("load-test", options.getConcurrency())))
+                .build();
+
+        cumulativeWeights = new int[options.getMix().size()];
+        int total = 0;
+        for (Map.Entry<LoadEndpoint, Integer> entry : options.getMix().entrySet()) {
+            total += entry.getValue();
+            cumulativeWeights[stats.size()] = total;
+            stats.add(new EndpointStats(entry.getKey()));
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The endpoint mix needs a positive total weight");
+        }
+    }
+
+    /**
+     * Executar o teste de carga e escrever o relatorio
+     * @return relatorio com os percentis por endpoint
+     */
+    public String run() {
+        LoadData data = LoadData.fetch(webClient).block();
+        logger.info("Starting load test ({}), warm-up {}, duration {}", describeMode(), options.getWarmup(), options.getDuration());
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.getWarmup().toNanos();
+        long end = measureFrom + options.getDuration().toNanos();
+        if (options.isOpenLoop()) {
+            runOpenLoop(data, start, measureFrom, end);
+        } else {
+            runClosedLoop(data, measureFrom, end);
+        }
+        String report = report();
+        logger.info("Load test finished\n{}", report);
+        try {
+            Path reportFile = Path.of(options.getReport());
+            if (reportFile.getParent() != null) {
+                Files.createDirectories(reportFile.getParent());
+            }
+            Files.writeString(reportFile, report);
+        } catch (IOException e) {
+            logger.error("Failed to write load test report to {}", options.getReport(), e);
+        }
+        return report;
+    }
+
+    private void runOpenLoop(LoadData data, long start, long measureFrom, long end) {
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRps();
+        Semaphore inFlight = new Semaphore(options.getConcurrency());
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquireUninterruptibly();
+
+            EndpointStats endpoint = pick();
+            boolean measured = intended >= measureFrom;
+            send(endpoint, data).subscribe(status -> {
+                inFlight.release();
+                endpoint.record(intended, status, measured);
+            });
+        }
+        // Esperar pelos pedidos ainda em curso
+        inFlight.acquireUninterruptibly(options.getConcurrency());
+    }
+
+    private void runClosedLoop(LoadData data, long measureFrom, long end) {
+        Flux.range(0, options.getConcurrency())
+                .flatMap(client -> Mono.defer(() -> {
+                            EndpointStats endpoint = pick();
+                            long sent = System.nanoTime();
+                            return send(endpoint, data).doOnNext(status -> endpoint.record(sent, status, sent >= measureFrom));
+                        })
+                        .repeat(() -> System.nanoTime() < end), options.getConcurrency())
+                .blockLast();
+    }
+
+    private Mono<HttpStatusCode> send(EndpointStats endpoint, LoadData data) {
+        // Erros de rede e timeouts contam como pedido falhado (FAILED), com a latencia ate ao erro
+        return endpoint.endpoint.send(webClient, data)
+                .timeout(options.getTimeout())
+                .onErrorResume(e -> Mono.empty())
+                .defaultIfEmpty(FAILED);
+    }
+
+    private EndpointStats pick() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (value >= cumulativeWeights[i]) {
+            i++;
+        }
+        return stats.get(i);
+    }
+
+    private String describeMode() {
+        return options.isOpenLoop()
+                ? String.format("open loop at %.1f req/s, at most %d in flight", options.getRps(), options.getConcurrency())
+                : String.format("closed loop with %d clients", options.getConcurrency());
+    }
+
+    private String report() {
+        double seconds = options.getDuration().toNanos() / 1e9;
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        StringBuilder report = new StringBuilder();
+        report.append("Load test: ").append(describeMode())
+                .append(", warm-up ").append(options.getWarmup()).append(", duration ").append(options.getDuration())
+                .append(", transport ").append(options.getTransport().describe()).append('\n');
+        report.append(options.isOpenLoop()
+                ? "Latencies in ms from each request's intended start time (corrected for coordinated omission)\n"
+                : "Latencies in ms from send to response (closed loop, not corrected for coordinated omission)\n");
+        report.append(String.format("%-26s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50", "p90", "p99", "p99.9", "max"));
+        long errors = 0;
+        for (EndpointStats endpoint : stats) {
+            total.add(endpoint.histogram);
+            errors += endpoint.errors.sum();
+            report.append(row(endpoint.endpoint.getEndpointName(), endpoint.histogram, endpoint.errors.sum(), seconds));
+        }
+        report.append(row("total", total, errors, seconds));
+
+        // Transporte durante todo o teste (inclui o aquecimento): conexoes abertas e espera no pool
+        report.append('\n').append(TransportOptions.metricsSummary(Metrics.globalRegistry));
+
+        // Distribuicao completa do total, no formato do HdrHistogram (para graficos de percentis)
+        ByteArrayOutputStream distribution = new ByteArrayOutputStream();
+        total.outputPercentileDistribution(new PrintStream(distribution, true, StandardCharsets.UTF_8), 1000.0);
+        report.append('\n').append(distribution.toString(StandardCharsets.UTF_8));
+        return report.toString();
+    }
+
+    private static String row(String name, Histogram histogram, long errors, double seconds) {
+        return String.format("%-26s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), errors,
+                histogram.getTotalCount() / seconds, millis(histogram, 50), millis(histogram, 90), millis(histogram, 99),
+                millis(histogram, 99.9), histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static class EndpointStats {
+
+        private final LoadEndpoint endpoint;
+
+        private final ConcurrentHistogram histogram = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+
+        private final LongAdder errors = new LongAdder();
+
+        EndpointStats(LoadEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void record(long startNanos, HttpStatusCode status, boolean measured) {
+            if (!measured) {
+                return;
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+            histogram.recordValue(Math.min(Math.max(micros, 1), MAX_LATENCY_MICROS));
+            if (status.isError()) {
+                errors.increment();
+            }
+        }
+    }
+}
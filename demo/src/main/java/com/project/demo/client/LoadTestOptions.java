@@ -0,0 +1,114 @@
+package com.project.demo.client;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opcoes do modo de carga, no formato --nome=valor:
+ * --rps (taxa alvo, loop aberto), --concurrency (maximo de pedidos em curso; sem --rps, numero de clientes em loop fechado),
+ * --warmup, --duration, --mix (endpoint:peso,...), --timeout e --report (ficheiro do relatorio),
+ * mais as opcoes de transporte de {@link TransportOptions} (por exemplo --http2=true)
+ */
+public class LoadTestOptions {
+
+    private double rps;
+
+    private int concurrency = 256;
+
+    private Duration warmup = Duration.ofSeconds(10);
+
+    private Duration duration = Duration.ofSeconds(60);
+
+    private Duration timeout = Duration.ofSeconds(30);
+
+    private Map<LoadEndpoint, Integer> mix = LoadEndpoint.defaultMix();
+
+    private String report = "demo/src/outputs/load_report.txt";
+
+    private final TransportOptions transport = new TransportOptions();
+
+    /**
+     * Ler as opcoes dos argumentos da linha de comandos
+     * @param args - argumentos --nome=valor
+     * @return opcoes, com os valores por defeito nas que nao forem indicadas
+     */
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "rps" -> options.rps = Double.parseDouble(value);
+                case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                case "timeout" -> options.timeout = DurationStyle.detectAndParse(value);
+                case "mix" -> options.mix = parseMix(value);
+                case "report" -> options.report = value;
+                default -> {
+                    if (!options.transport.apply(arg.substring(2, separator), value)) {
+                        throw new IllegalArgumentException("Unknown load test option: " + arg);
+                    }
+                }
+            }
+        }
+        if (options.concurrency <= 0) {
+            throw new IllegalArgumentException("--concurrency must be positive");
+        }
+        return options;
+    }
+
+    private static Map<LoadEndpoint, Integer> parseMix(String value) {
+        Map<LoadEndpoint, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            mix.put(LoadEndpoint.byName(parts[0].trim()), parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+        }
+        return mix;
+    }
+
+    /**
+     * Loop aberto (pedidos a taxa fixa) quando ha --rps; caso contrario loop fechado com --concurrency clientes
+     */
+    public boolean isOpenLoop() {
+        return rps > 0;
+    }
+
+    public double getRps() {
+        return rps;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public Map<LoadEndpoint, Integer> getMix() {
+        return mix;
+    }
+
+    public String getReport() {
+        return report;
+    }
+
+    public TransportOptions getTransport() {
+        return transport;
+    }
+}
@@ -0,0 +1,156 @@
+package com.project.demo.client;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Multimapa long -> long imutavel em formato CSR (compressed sparse row): os valores de todas as chaves ficam num
+ * unico long[], agrupados por chave, e cada chave guarda apenas o intervalo [inicio, fim) do seu grupo.
+ * Construido a partir dos pares (chave, valor) em O(N), com uma contagem por chave e uma segunda passagem de colocacao;
+ * a ordem dos valores de cada chave e a ordem de insercao
+ */
+public final class LongMultimap {
+
+    private static final long[] EMPTY = new long[0];
+
+    // Tabela de enderecamento aberto: chave -> indice denso da chave (-1 = livre)
+    private final long[] slotKeys;
+
+    private final int[] slotIndex;
+
+    // Valores da chave de indice i em values[offsets[i] .. offsets[i + 1])
+    private final int[] offsets;
+
+    private final long[] values;
+
+    private LongMultimap(long[] slotKeys, int[] slotIndex, int[] offsets, long[] values) {
+        this.slotKeys = slotKeys;
+        this.slotIndex = slotIndex;
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param key - chave
+     * @return copia dos valores da chave (vazio se nao existir)
+     */
+    public long[] get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? EMPTY : Arrays.copyOfRange(values, offsets[index], offsets[index + 1]);
+    }
+
+    /**
+     * Percorrer os valores de uma chave sem copias
+     * @param key - chave
+     * @param action - chamada para cada valor
+     */
+    public void forEach(long key, LongConsumer action) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return;
+        }
+        for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    /**
+     * @return valores distintos de todas as chaves, por ordem crescente
+     */
+    public long[] distinctValues() {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    public int keyCount() {
+        return offsets.length - 1;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    private int indexOf(long key) {
+        return slotIndex[slot(slotKeys, slotIndex, key)];
+    }
+
+    private static int slot(long[] slotKeys, int[] slotIndex, long key) {
+        int mask = slotKeys.length - 1;
+        int slot = LongObjectMap.mix(key) & mask;
+        while (slotIndex[slot] >= 0 && slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Acumula os pares (chave, valor) em dois long[] que crescem por duplicacao
+     */
+    public static final class Builder {
+
+        private long[] keys = new long[1024];
+
+        private long[] vals = new long[1024];
+
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder add(long key, long value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                vals = Arrays.copyOf(vals, size * 2);
+            }
+            keys[size] = key;
+            vals[size] = value;
+            size++;
+            return this;
+        }
+
+        public LongMultimap build() {
+            int capacity = LongObjectMap.tableSize(size);
+            long[] slotKeys = new long[capacity];
+            int[] slotIndex = new int[capacity];
+            Arrays.fill(slotIndex, -1);
+
+            // 1a passagem: indice denso de cada par e numero de valores por chave
+            int[] pairIndex = new int[size];
+            int[] counts = new int[Math.max(size, 1)];
+            int keyCount = 0;
+            for (int i = 0; i < size; i++) {
+                int slot = slot(slotKeys, slotIndex, keys[i]);
+                if (slotIndex[slot] < 0) {
+                    slotKeys[slot] = keys[i];
+                    slotIndex[slot] = keyCount++;
+                }
+                pairIndex[i] = slotIndex[slot];
+                counts[pairIndex[i]]++;
+            }
+
+            int[] offsets = new int[keyCount + 1];
+            for (int k = 0; k < keyCount; k++) {
+                offsets[k + 1] = offsets[k] + counts[k];
+            }
+
+            // 2a passagem: colocar cada valor no grupo da sua chave
+            long[] values = new long[size];
+            int[] next = Arrays.copyOf(offsets, keyCount);
+            for (int i = 0; i < size; i++) {
+                values[next[pairIndex[i]]++] = vals[i];
+            }
+            return new LongMultimap(slotKeys, slotIndex, offsets, values);
+        }
+    }
+}
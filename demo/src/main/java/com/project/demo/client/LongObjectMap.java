@@ -0,0 +1,97 @@
+package com.project.demo.client;
+
+/**
+ * Mapa de chaves long (IDs) para objetos, com enderecamento aberto (linear probing) sobre arrays,
+ * sem Long nem entradas por elemento. Nao aceita valores null; get devolve null para chaves inexistentes
+ *
+ * @param <V> tipo dos valores
+ */
+public final class LongObjectMap<V> {
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize - numero de entradas esperado (evita redimensionar)
+     */
+    public LongObjectMap(int expectedSize) {
+        int capacity = tableSize(expectedSize);
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Guardar um valor, substituindo o anterior da mesma chave
+     * @param key - chave
+     * @param value - valor (nao null)
+     */
+    public void put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int slot = slot(keys, values, key);
+        if (values[slot] == null) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * @param key - chave
+     * @return valor da chave, ou null se nao existir
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) values[slot(keys, values, key)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Posicao da chave, ou a primeira posicao livre onde ficaria (a tabela nunca passa de metade cheia)
+    private static int slot(long[] keys, Object[] values, long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(keys, values, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // Capacidade potencia de 2 com pelo menos o dobro das entradas
+    static int tableSize(int expectedSize) {
+        return Integer.highestOneBit(Math.max(expectedSize, 4) * 4 - 1);
+    }
+
+    // Espalhar os bits (IDs sequenciais cairiam em posicoes seguidas)
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
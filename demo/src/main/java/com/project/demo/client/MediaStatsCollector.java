@@ -0,0 +1,78 @@
+package com.project.demo.client;
+
+import com.project.demo.dto.MediaStats;
+import com.project.demo.entity.Media;
+import com.project.demo.stats.Extremes;
+import com.project.demo.stats.RunningStats;
+
+import java.util.Comparator;
+import java.util.stream.Collector;
+
+/**
+ * As mesmas estatisticas do endpoint /api/media/stats, calculadas no cliente num unico passo sobre o Flux de media,
+ * com memoria constante (Welford para media e desvio padrao, min/max por data em vez de ordenar)
+ */
+public final class MediaStatsCollector {
+
+    private final short ratingThreshold;
+
+    private final RunningStats ratings = new RunningStats();
+
+    private final Extremes<Media> byReleaseDate = new Extremes<>(Comparator.comparing(Media::getReleaseDate));
+
+    private long totalCount;
+
+    private long countAboveThreshold;
+
+    private MediaStatsCollector(short ratingThreshold) {
+        this.ratingThreshold = ratingThreshold;
+    }
+
+    /**
+     * @param ratingThreshold - rating a partir do qual (exclusive) se contam as medias
+     * @return Collector para Flux.collect(...)
+     */
+    public static Collector<Media, ?, MediaStats> of(short ratingThreshold) {
+        return Collector.of(() -> new MediaStatsCollector(ratingThreshold),
+                MediaStatsCollector::add,
+                MediaStatsCollector::combine,
+                MediaStatsCollector::toMediaStats);
+    }
+
+    private void add(Media media) {
+        totalCount++;
+        if (media.getAverageRating() != null) {
+            ratings.add(media.getAverageRating());
+            if (media.getAverageRating() > ratingThreshold) {
+                countAboveThreshold++;
+            }
+        }
+        if (media.getReleaseDate() != null) {
+            byReleaseDate.add(media);
+        }
+    }
+
+    private MediaStatsCollector combine(MediaStatsCollector other) {
+        totalCount += other.totalCount;
+        countAboveThreshold += other.countAboveThreshold;
+        ratings.combine(other.ratings);
+        byReleaseDate.combine(other.byReleaseDate);
+        return this;
+    }
+
+    private MediaStats toMediaStats() {
+        // Tal como no SQL (AVG, STDDEV_SAMP): null sem valores suficientes
+        MediaStats stats = new MediaStats();
+        stats.setTotalCount(totalCount);
+        stats.setRatingThreshold(ratingThreshold);
+        stats.setCountAboveThreshold(countAboveThreshold);
+        stats.setAverageRating(ratings.getCount() > 0 ? ratings.getMean() : null);
+        stats.setRatingStandardDeviation(ratings.getCount() > 1 ? ratings.getStandardDeviation() : null);
+        if (byReleaseDate.getMin() != null) {
+            stats.setOldestTitle(byReleaseDate.getMin().getTitle());
+            stats.setOldestReleaseDate(byReleaseDate.getMin().getReleaseDate());
+            stats.setNewestReleaseDate(byReleaseDate.getMax().getReleaseDate());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,258 @@
+package com.project.demo.client;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Camada de resiliencia dos pedidos do cliente, por endpoint:
+ * <ul>
+ * <li>timeout por pedido: ate ao primeiro elemento e entre elementos (as respostas sao streams NDJSON longas)</li>
+ * <li>retry com backoff exponencial e jitter, so para 5xx e erros de rede, e so antes de chegar o primeiro elemento
+ * (um stream ja parcialmente escrito nao e repetido)</li>
+ * <li>circuit breaker ({@link CircuitBreaker}): com o servidor a falhar os pedidos e os retries falham logo, sem o carregar</li>
+ * <li>hedging: se o pedido nao responder ate ao p95 da latencia do endpoint, e enviado um segundo pedido igual e fica
+ * o que responder primeiro. So com o circuito fechado e no maximo para 10% dos pedidos</li>
+ * </ul>
+ * Todos os pedidos passados a {@link #call} podem ser enviados mais do que uma vez: so para pedidos idempotentes.
+ * Opcoes no formato --nome=valor: --request-timeout, --max-retries, --min-backoff, --max-backoff e --hedging
+ */
+public class Resilience {
+
+    private static final Logger logger = LoggerFactory.getLogger(Resilience.class);
+
+    private static final double BACKOFF_JITTER = 0.5;
+
+    // Circuit breaker: abre com pelo menos 50% de falhas nos ultimos 20 pedidos (minimo 5) e fica aberto 30 segundos
+    private static final int BREAKER_WINDOW = 20;
+    private static final int BREAKER_MINIMUM_CALLS = 5;
+    private static final double BREAKER_FAILURE_RATE = 0.5;
+    private static final Duration BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+
+    // Hedging: so depois de amostras suficientes para o p95 e com um teto de pedidos extra
+    private static final int HEDGE_MIN_SAMPLES = 20;
+    private static final double HEDGE_PERCENTILE = 95.0;
+    private static final long HEDGE_MIN_DELAY_MICROS = 10_000;
+    private static final double HEDGE_BUDGET = 0.1;
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    private int maxRetries = 3;
+
+    private Duration minBackoff = Duration.ofMillis(500);
+
+    private Duration maxBackoff = Duration.ofSeconds(10);
+
+    private boolean hedging = true;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Aplicar uma opcao de resiliencia
+     * @param name - nome da opcao (sem --)
+     * @param value - valor
+     * @return false se a opcao nao for de resiliencia
+     */
+    public boolean apply(String name, String value) {
+        switch (name) {
+            case "request-timeout" -> requestTimeout = DurationStyle.detectAndParse(value);
+            case "max-retries" -> maxRetries = Integer.parseInt(value);
+            case "min-backoff" -> minBackoff = DurationStyle.detectAndParse(value);
+            case "max-backoff" -> maxBackoff = DurationStyle.detectAndParse(value);
+            case "hedging" -> hedging = Boolean.parseBoolean(value);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Executar um pedido idempotente com timeout, retries, circuit breaker e hedging
+     * @param name - endpoint (estado do circuit breaker e latencias sao por nome, por exemplo "GET /api/media")
+     * @param request - cria o pedido; e chamado uma vez por tentativa
+     * @return Flux com a resposta da tentativa que respondeu primeiro
+     */
+    public <T> Flux<T> call(String name, Supplier<? extends Publisher<T>> request) {
+        Endpoint endpoint = endpoints.computeIfAbsent(name, Endpoint::new);
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            return hedged(endpoint, request)
+                    .doOnNext(value -> emitted.set(true))
+                    .retryWhen(retrySpec(endpoint, emitted));
+        });
+    }
+
+    public CircuitBreaker.State getState(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        return endpoint != null ? endpoint.breaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    public String describe() {
+        return "request timeout " + requestTimeout.toMillis() + " ms, max retries " + maxRetries
+                + ", hedging " + (hedging ? "on" : "off");
+    }
+
+    /**
+     * Resumo por endpoint: estado do circuito, p95 da latencia ate ao primeiro elemento, retries, hedges e pedidos rejeitados
+     * @return texto com uma linha por endpoint
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        endpoints.values().stream()
+                .sorted((a, b) -> a.name.compareTo(b.name))
+                .forEach(endpoint -> summary.append(String.format("%-36s %-9s p95 %8.2f ms  requests %5d  retries %3d  hedges %3d  rejected %3d%n",
+                        endpoint.name, endpoint.breaker.getState(),
+                        endpoint.latencies.getTotalCount() > 0 ? endpoint.latencies.getValueAtPercentile(HEDGE_PERCENTILE) / 1000.0 : 0,
+                        endpoint.requests.get(), (long) endpoint.retries.count(), endpoint.hedgesSent.get(), (long) endpoint.rejected.count())));
+        return summary.toString();
+    }
+
+    // Pedido principal e, se demorar mais que o p95, um segundo pedido; ganha o primeiro sinal (elemento ou fim).
+    // Os erros do segundo pedido sao ignorados: o resultado (e o retry) e decidido pelo pedido principal
+    private <T> Flux<T> hedged(Endpoint endpoint, Supplier<? extends Publisher<T>> request) {
+        return Flux.defer(() -> {
+            Flux<T> primary = attempt(endpoint, request);
+            Duration delay = hedging ? endpoint.hedgeDelay() : null;
+            if (delay == null) {
+                return primary;
+            }
+            Flux<T> secondary = Mono.delay(delay)
+                    .flatMapMany(tick -> {
+                        if (!endpoint.tryHedge()) {
+                            return Flux.<T>never();
+                        }
+                        logger.debug("Hedging {} after {} ms", endpoint.name, delay.toMillis());
+                        return attempt(endpoint, request).onErrorResume(error -> Flux.never());
+                    });
+            return Flux.firstWithSignal(primary, secondary);
+        });
+    }
+
+    // Uma tentativa: autorizacao do circuit breaker, timeouts e registo do resultado e da latencia ate ao primeiro sinal
+    private <T> Flux<T> attempt(Endpoint endpoint, Supplier<? extends Publisher<T>> request) {
+        return Flux.defer(() -> {
+            try {
+                endpoint.breaker.acquire();
+            } catch (CircuitBreaker.OpenException e) {
+                endpoint.rejected.increment();
+                return Flux.error(e);
+            }
+            endpoint.requests.incrementAndGet();
+            long start = System.nanoTime();
+            AtomicBoolean firstSignal = new AtomicBoolean();
+            AtomicBoolean terminated = new AtomicBoolean();
+            return Flux.from(request.get())
+                    .timeout(Mono.delay(requestTimeout), value -> Mono.delay(requestTimeout))
+                    .doOnEach(signal -> {
+                        if (!signal.isOnSubscribe() && firstSignal.compareAndSet(false, true)) {
+                            endpoint.recordLatency(System.nanoTime() - start);
+                        }
+                        if (signal.isOnComplete() && terminated.compareAndSet(false, true)) {
+                            endpoint.breaker.onSuccess();
+                        } else if (signal.isOnError() && terminated.compareAndSet(false, true)) {
+                            if (isServerFailure(signal.getThrowable())) {
+                                endpoint.breaker.onFailure();
+                            } else {
+                                endpoint.breaker.onSuccess();
+                            }
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (terminated.compareAndSet(false, true)) {
+                            endpoint.breaker.onCancel();
+                        }
+                    });
+        });
+    }
+
+    private RetryBackoffSpec retrySpec(Endpoint endpoint, AtomicBoolean emitted) {
+        return Retry.backoff(maxRetries, minBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(BACKOFF_JITTER)
+                .filter(error -> !emitted.get() && isServerFailure(error))
+                .doBeforeRetry(signal -> {
+                    endpoint.retries.increment();
+                    logger.warn("Retrying {} after {} (attempt {})", endpoint.name, signal.failure().toString(), signal.totalRetries() + 1);
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    // 5xx, timeouts e erros de rede; os 4xx sao erros do pedido (o servidor esta a responder) e um circuito aberto nao se repete
+    private static boolean isServerFailure(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        return !(error instanceof CircuitBreaker.OpenException);
+    }
+
+    private static final class Endpoint {
+
+        private final String name;
+
+        private final CircuitBreaker breaker;
+
+        // Latencia ate ao primeiro elemento (ou fim da resposta), em microssegundos
+        private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 2);
+
+        private final AtomicLong requests = new AtomicLong();
+
+        private final AtomicLong hedgesSent = new AtomicLong();
+
+        private final Counter retries;
+
+        private final Counter rejected;
+
+        private Endpoint(String name) {
+            this.name = name;
+            this.breaker = new CircuitBreaker(name, BREAKER_WINDOW, BREAKER_MINIMUM_CALLS, BREAKER_FAILURE_RATE, BREAKER_OPEN_DURATION);
+            this.retries = Metrics.counter("client.resilience.retries", "endpoint", name);
+            this.rejected = Metrics.counter("client.resilience.rejected", "endpoint", name);
+            Metrics.more().counter("client.resilience.hedges", Tags.of("endpoint", name), hedgesSent);
+        }
+
+        private void recordLatency(long nanos) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_LATENCY_MICROS));
+        }
+
+        private Duration hedgeDelay() {
+            if (latencies.getTotalCount() < HEDGE_MIN_SAMPLES) {
+                return null;
+            }
+            return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(
+                    Math.max(latencies.getValueAtPercentile(HEDGE_PERCENTILE), HEDGE_MIN_DELAY_MICROS)));
+        }
+
+        // Um segundo pedido so com o circuito fechado e dentro do orcamento de hedges
+        private boolean tryHedge() {
+            if (breaker.getState() != CircuitBreaker.State.CLOSED || hedgesSent.get() >= HEDGE_BUDGET * requests.get()) {
+                return false;
+            }
+            hedgesSent.incrementAndGet();
+            return true;
+        }
+    }
+}
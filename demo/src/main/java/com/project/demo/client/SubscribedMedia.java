@@ -0,0 +1,27 @@
+package com.project.demo.client;
+
+import com.project.demo.entity.Consumer;
+import com.project.demo.entity.Media;
+
+/**
+ * Linha do join consumer -> media subscrita (query 10)
+ */
+public final class SubscribedMedia {
+
+    private final Consumer consumer;
+
+    private final Media media;
+
+    public SubscribedMedia(Consumer consumer, Media media) {
+        this.consumer = consumer;
+        this.media = media;
+    }
+
+    public Consumer getConsumer() {
+        return consumer;
+    }
+
+    public Media getMedia() {
+        return media;
+    }
+}
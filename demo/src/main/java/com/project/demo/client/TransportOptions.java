@@ -0,0 +1,133 @@
+package com.project.demo.client;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.project.demo.codec.SmileCodecs;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.MediaType;
+
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Transporte HTTP do cliente (modo de queries e modo de carga), no formato --nome=valor:
+ * --http2 (h2c: varios pedidos multiplexados em poucas conexoes, em vez de uma conexao por pedido em curso),
+ * --max-connections, --pending-acquire-max (pedidos em espera por uma conexao; -1 sem limite),
+ * --pending-acquire-timeout e --max-idle-time (conexoes paradas ha mais tempo sao fechadas em background)
+ * e --format=smile (streams em Smile binario em vez de NDJSON, ver SmileCodecs).
+ * O pool e o cliente registam metricas (reactor.netty.*) no registry global do Micrometer
+ */
+public class TransportOptions {
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    // Com h2c cada conexao multiplexa varios pedidos: por defeito poucas conexoes (o pool h2 abre conexoes novas
+    // enquanto a primeira ainda esta a ser estabelecida, se o maximo o permitir)
+    private static final int H2C_DEFAULT_MAX_CONNECTIONS = 4;
+
+    private boolean http2;
+
+    private Integer maxConnections;
+
+    private int pendingAcquireMax = 1000;
+
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    private MediaType streamingMediaType = MediaType.APPLICATION_NDJSON;
+
+    /**
+     * Aplicar uma opcao de transporte
+     * @param name - nome da opcao (sem --)
+     * @param value - valor
+     * @return false se a opcao nao for de transporte
+     */
+    public boolean apply(String name, String value) {
+        switch (name) {
+            case "http2" -> http2 = Boolean.parseBoolean(value);
+            case "max-connections" -> maxConnections = Integer.parseInt(value);
+            case "pending-acquire-max" -> pendingAcquireMax = Integer.parseInt(value);
+            case "pending-acquire-timeout" -> pendingAcquireTimeout = DurationStyle.detectAndParse(value);
+            case "max-idle-time" -> maxIdleTime = DurationStyle.detectAndParse(value);
+            case "format" -> streamingMediaType = switch (value) {
+                case "ndjson" -> MediaType.APPLICATION_NDJSON;
+                case "smile" -> SmileCodecs.SMILE_STREAM;
+                default -> throw new IllegalArgumentException("Unknown format: " + value + " (expected ndjson or smile)");
+            };
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Criar o HttpClient com um pool proprio
+     * @param name - nome do pool (tag name das metricas reactor.netty.connection.provider.*)
+     * @param defaultMaxConnections - maximo de conexoes HTTP/1.1 se --max-connections nao for indicado
+     * @return HttpClient configurado
+     */
+    public HttpClient createHttpClient(String name, int defaultMaxConnections) {
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections != null ? maxConnections
+                        : http2 ? Math.min(defaultMaxConnections, H2C_DEFAULT_MAX_CONNECTIONS) : defaultMaxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(maxIdleTime)
+                .metrics(true)
+                .build();
+        return HttpClient.create(provider)
+                .protocol(http2 ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                .metrics(true, uri -> NUMERIC_SEGMENT.matcher(uri.replaceFirst("\\?.*", "")).replaceAll("/{id}"));
+    }
+
+    /**
+     * @return Accept dos pedidos que devolvem streams de entidades (NDJSON ou Smile)
+     */
+    public MediaType getStreamingMediaType() {
+        return streamingMediaType;
+    }
+
+    public String describe() {
+        return (http2 ? "h2c" : "HTTP/1.1") + ", max connections " + (maxConnections != null ? maxConnections : "default")
+                + ", pending acquire max " + pendingAcquireMax + ", " + streamingMediaType;
+    }
+
+    /**
+     * Resumo das metricas do transporte: conexoes abertas, pedidos que esperaram por uma conexao (ou stream h2) no pool e respostas
+     * @param registry - registry onde o Reactor Netty registou as metricas
+     * @return texto com uma linha por metrica
+     */
+    public static String metricsSummary(MeterRegistry registry) {
+        StringBuilder summary = new StringBuilder();
+        appendTimer(summary, registry, "reactor.netty.http.client.connect.time", "connections opened");
+        appendTimer(summary, registry, "reactor.netty.connection.provider.pending.connections.time", "acquires that waited");
+        appendTimer(summary, registry, "reactor.netty.connection.provider.pending.streams.time", "h2 streams that waited");
+        appendTimer(summary, registry, "reactor.netty.http.client.response.time", "responses");
+        return summary.toString();
+    }
+
+    private static void appendTimer(StringBuilder summary, MeterRegistry registry, String name, String label) {
+        long count = 0;
+        double max = 0;
+        double total = 0;
+        for (Meter meter : registry.find(name).meters()) {
+            if (meter instanceof Timer timer) {
+                count += timer.count();
+                total += timer.totalTime(TimeUnit.MILLISECONDS);
+                max = Math.max(max, timer.max(TimeUnit.MILLISECONDS));
+            }
+        }
+        summary.append(String.format("%-26s %8d  mean %8.2f ms  max %8.2f ms%n", label, count, count > 0 ? total / count : 0, max));
+    }
+}
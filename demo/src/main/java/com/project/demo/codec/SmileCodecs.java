@@ -0,0 +1,62 @@
+package com.project.demo.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+/**
+ * Smile (JSON binario do Jackson) nos endpoints de entidades, negociado pelo Accept:
+ * application/stream+x-jackson-smile nos Flux (um valor Smile por elemento, como o NDJSON) e application/x-jackson-smile
+ * nos restantes. Os nomes dos campos repetidos sao escritos uma vez e referenciados depois (shared property names)
+ * e as datas seguem como [ano, mes, dia] em vez de texto. Usado pelo servidor (CodecConfig) e pelos clientes (WebClient.codecs)
+ */
+public final class SmileCodecs {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final String SMILE_STREAM_VALUE = "application/stream+x-jackson-smile";
+
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    public static final MediaType SMILE_STREAM = MediaType.parseMediaType(SMILE_STREAM_VALUE);
+
+    // Com um ObjectMapper proprio os codecs Jackson assumem os tipos JSON se nao forem indicados outros
+    private static final MimeType[] MIME_TYPES = {SMILE, MediaType.parseMediaType("application/*+x-jackson-smile")};
+
+    private SmileCodecs() {
+    }
+
+    /**
+     * ObjectMapper Smile com as mesmas opcoes do lado que le e do lado que escreve
+     * @return ObjectMapper com SmileFactory
+     */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.smile()
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    public static Jackson2SmileEncoder encoder() {
+        return new Jackson2SmileEncoder(objectMapper(), MIME_TYPES);
+    }
+
+    public static Jackson2SmileDecoder decoder() {
+        return new Jackson2SmileDecoder(objectMapper(), MIME_TYPES);
+    }
+
+    /**
+     * Substituir o encoder e o decoder Smile por defeito por estes. Ficam na posicao dos por defeito, depois do JSON:
+     * como custom codecs ficariam antes e um pedido sem Accept (ou com um Accept generico) recebia Smile
+     * @param configurer - codecs do servidor ou do WebClient
+     */
+    public static void register(CodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2SmileEncoder(encoder());
+        configurer.defaultCodecs().jackson2SmileDecoder(decoder());
+    }
+}
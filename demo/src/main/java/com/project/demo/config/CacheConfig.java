@@ -0,0 +1,27 @@
+package com.project.demo.config;
+
+import com.project.demo.cache.EntityCache;
+import com.project.demo.entity.Consumer;
+import com.project.demo.entity.Media;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public EntityCache<Media> mediaCache(@Value("${project.cache.media.max-size:10000}") long maximumSize,
+                                         @Value("${project.cache.media.ttl:5m}") Duration timeToLive) {
+        return new EntityCache<>("media", maximumSize, timeToLive);
+    }
+
+    @Bean
+    public EntityCache<Consumer> consumerCache(@Value("${project.cache.consumer.max-size:10000}") long maximumSize,
+                                               @Value("${project.cache.consumer.ttl:5m}") Duration timeToLive) {
+        return new EntityCache<>("consumer", maximumSize, timeToLive);
+    }
+}
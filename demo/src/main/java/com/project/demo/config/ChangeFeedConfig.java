@@ -0,0 +1,46 @@
+package com.project.demo.config;
+
+import com.project.demo.entity.Consumer;
+import com.project.demo.entity.ConsumerMedia;
+import com.project.demo.entity.Media;
+import com.project.demo.service.ChangeFeed;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Feeds de alteracoes das tabelas (GET /api/{media|consumers|relationships}/changes)
+ */
+@Configuration
+public class ChangeFeedConfig {
+
+    @Value("${project.changes.history-size:10000}")
+    private int historySize;
+
+    @Value("${project.changes.subscriber-buffer-size:1000}")
+    private int subscriberBufferSize;
+
+    @Bean
+    public ChangeFeed<Media> mediaChanges() {
+        return new ChangeFeed<>("media", historySize, subscriberBufferSize, media -> String.valueOf(media.getId()));
+    }
+
+    @Bean
+    public ChangeFeed<Consumer> consumerChanges() {
+        return new ChangeFeed<>("consumer", historySize, subscriberBufferSize, consumer -> String.valueOf(consumer.getId()));
+    }
+
+    @Bean
+    public ChangeFeed<ConsumerMedia> relationshipChanges() {
+        return new ChangeFeed<>("consumer_media", historySize, subscriberBufferSize,
+                relationship -> relationshipKey(relationship.getConsumerId(), relationship.getMediaId()));
+    }
+
+    /**
+     * Chave de uma relacao nos eventos, no mesmo formato do cursor das paginas ("consumerId:mediaId")
+     */
+    public static String relationshipKey(Long consumerId, Long mediaId) {
+        return consumerId + ":" + mediaId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.demo.config;
+
+import com.project.demo.codec.SmileCodecs;
+
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Codecs do WebFlux alem do JSON/NDJSON do Spring Boot (ver SmileCodecs)
+ */
+@Configuration
+public class CodecConfig {
+
+    @Bean
+    public CodecCustomizer smileCodecCustomizer() {
+        return SmileCodecs::register;
+    }
+}
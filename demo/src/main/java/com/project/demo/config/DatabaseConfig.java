@@ -0,0 +1,71 @@
+package com.project.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.util.StringUtils;
+
+/**
+ * Pool de conexoes R2DBC configurado a partir de spring.r2dbc.* (incluindo spring.r2dbc.pool.*),
+ * com o tempo de acquire medido e as conexoes iniciais abertas no arranque
+ */
+@Slf4j
+@Configuration
+public class DatabaseConfig {
+
+    private static final String POOL_NAME = "connectionFactory";
+
+    @Bean(destroyMethod = "dispose")
+    public InstrumentedConnectionFactory connectionFactory(R2dbcProperties properties, MeterRegistry meterRegistry) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (StringUtils.hasText(properties.getUsername())) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (StringUtils.hasText(properties.getPassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        // spring.r2dbc.properties.* sao opcoes do driver (ex: preparedStatementCacheQueries)
+        properties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name(POOL_NAME);
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getInitialSize()).to(configuration::initialSize);
+        map.from(pool.getMaxSize()).to(configuration::maxSize);
+        map.from(pool.getMinIdle()).to(configuration::minIdle);
+        map.from(pool.getMaxIdleTime()).to(configuration::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(configuration::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(configuration::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(configuration::maxCreateConnectionTime);
+        map.from(pool.getMaxValidationTime()).to(configuration::maxValidationTime);
+        map.from(pool.getValidationQuery()).whenHasText().to(configuration::validationQuery);
+        map.from(pool.getValidationDepth()).to(configuration::validationDepth);
+
+        return new InstrumentedConnectionFactory(new ConnectionPool(configuration.build()), POOL_NAME, meterRegistry);
+    }
+
+    /**
+     * Abrir as initial-size conexoes quando a aplicacao fica pronta, para que os primeiros pedidos nao paguem o handshake.
+     * Nao bloqueia o arranque: se a base de dados nao estiver disponivel apenas regista o aviso
+     * @param event - evento de arranque concluido
+     */
+    @EventListener
+    public void warmupPool(ApplicationReadyEvent event) {
+        event.getApplicationContext().getBean(InstrumentedConnectionFactory.class).unwrap().warmup().subscribe(
+                count -> log.info("Connection pool warmed up with {} connections", count),
+                e -> log.warn("Connection pool warmup failed: {}", e.getMessage()));
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.demo.config;
+
+import com.project.demo.logging.SqlDebug;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * ConnectionFactory que mede o tempo de espera por uma conexao do pool (r2dbc.pool.acquire) e, nos pedidos com o
+ * debug de SQL ativo no Context (ver SqlDebug), entrega a conexao com os statements registados no log.
+ * Implementa Wrapped para que as metricas do pool (acquired, idle, pending, ...) continuem a encontrar o ConnectionPool.
+ */
+class InstrumentedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionPool>, Disposable {
+
+    private final ConnectionPool pool;
+
+    private final Timer acquired;
+
+    private final Timer failed;
+
+    InstrumentedConnectionFactory(ConnectionPool pool, String name, MeterRegistry meterRegistry) {
+        this.pool = pool;
+        this.acquired = acquireTimer(name, "success").register(meterRegistry);
+        this.failed = acquireTimer(name, "error").register(meterRegistry);
+    }
+
+    private static Timer.Builder acquireTimer(String name, String outcome) {
+        return Timer.builder("r2dbc.pool.acquire")
+                .description("Tempo de espera por uma conexao do pool")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram();
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(context -> {
+            Timer.Sample sample = Timer.start();
+            Mono<Connection> connection = pool.create()
+                    .doOnSuccess(c -> sample.stop(acquired))
+                    .doOnError(e -> sample.stop(failed));
+            return context.getOrDefault(SqlDebug.CONTEXT_KEY, false)
+                    ? connection.map(SqlDebugConnection::wrap)
+                    : connection;
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public ConnectionPool unwrap() {
+        return pool;
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return pool.isDisposed();
+    }
+}
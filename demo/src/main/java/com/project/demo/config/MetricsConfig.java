@@ -0,0 +1,63 @@
+package com.project.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import reactor.core.Scannable;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Set;
+
+@Configuration
+public class MetricsConfig implements DisposableBean {
+
+    private static final String SCHEDULER_METRICS_KEY = MetricsConfig.class.getName();
+
+    // Schedulers do proprio Reactor (as classes nao sao publicas). Os criados com Schedulers.fromExecutorService ficam de
+    // fora: o r2dbc-postgresql cria um por conexao sobre o event loop do Netty, que o ExecutorServiceMetrics nao suporta
+    private static final Set<String> REACTOR_SCHEDULERS = Set.of(
+            "reactor.core.scheduler.ParallelScheduler",
+            "reactor.core.scheduler.SingleScheduler",
+            "reactor.core.scheduler.BoundedElasticScheduler");
+
+    /**
+     * Metricas de executor (tarefas ativas, em fila, concluidas, tempo de execucao) dos Schedulers parallel, single e
+     * boundedElastic, com o prefixo reactor e o tag reactor.scheduler.
+     * O nome das metricas e o do Scheduler: os executors de um Scheduler (um por worker, e os do boundedElastic vao sendo
+     * substituidos) partilham os mesmos meters, por isso o numero de meters nao cresce. Os timers somam todos os executors,
+     * os gauges ficam com o primeiro
+     */
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        Schedulers.addExecutorServiceDecorator(SCHEDULER_METRICS_KEY, (scheduler, executor) -> {
+            if (!REACTOR_SCHEDULERS.contains(scheduler.getClass().getName())) {
+                return executor;
+            }
+            String schedulerName = Scannable.from(scheduler).scanOrDefault(Scannable.Attr.NAME, scheduler.getClass().getSimpleName());
+            return ExecutorServiceMetrics.monitor(meterRegistry, executor, schedulerName, "reactor",
+                    Tags.of("reactor.scheduler", schedulerName));
+        });
+    }
+
+    @Override
+    public void destroy() {
+        Schedulers.removeExecutorServiceDecorator(SCHEDULER_METRICS_KEY);
+    }
+
+    /**
+     * Tags de spring.data.repository.invocations alinhados com service.invocations (operation e outcome)
+     */
+    @Bean
+    public RepositoryTagsProvider repositoryTagsProvider() {
+        return invocation -> Tags.of(
+                "repository", invocation.getRepositoryInterface().getSimpleName(),
+                "operation", invocation.getMethod().getName(),
+                "outcome", invocation.getResult().getState().name(),
+                "exception", invocation.getResult().getError() == null ? "None" : invocation.getResult().getError().getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,49 @@
+package com.project.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorResourceFactory;
+
+import reactor.netty.resources.LoopResources;
+
+import java.util.regex.Pattern;
+
+/**
+ * Event loops do servidor Reactor Netty com numero de threads configuravel (project.netty.*) e metricas do servidor
+ */
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class NettyConfig {
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    @Bean
+    public ReactorResourceFactory reactorResourceFactory(@Value("${project.netty.select-count:0}") int selectCount,
+                                                         @Value("${project.netty.worker-count:0}") int workerCount) {
+        int workers = workerCount > 0 ? workerCount : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        log.info("Netty event loops: select={}, workers={}", selectCount, workers);
+
+        // Recursos proprios (nao os globais) para que sejam libertados quando o contexto fecha
+        ReactorResourceFactory resourceFactory = new ReactorResourceFactory();
+        resourceFactory.setUseGlobalResources(false);
+        resourceFactory.setLoopResourcesSupplier(() -> selectCount > 0
+                ? LoopResources.create("http", selectCount, workers, true)
+                : LoopResources.create("http", workers, true));
+        return resourceFactory;
+    }
+
+    /**
+     * Metricas do Reactor Netty (reactor.netty.*: conexoes, bytes, tempos por fase e tarefas pendentes nos event loops).
+     * Os IDs numericos no path passam a {id} para manter a cardinalidade do tag uri limitada
+     */
+    @Bean
+    public NettyServerCustomizer nettyMetricsCustomizer() {
+        return httpServer -> httpServer.metrics(true, uri -> NUMERIC_SEGMENT.matcher(uri).replaceAll("/{id}"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.project.demo.config;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Parameter;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Proxy de uma Connection que regista no log (a INFO) cada statement executado, com os valores dos binds.
+ * So e usado nas conexoes obtidas por pedidos com o header X-Debug-Sql, por isso os restantes pedidos nao pagam nada
+ */
+@Slf4j
+final class SqlDebugConnection {
+
+    private SqlDebugConnection() {}
+
+    static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class, Wrapped.class},
+                (proxy, method, args) -> {
+                    if (isUnwrap(method)) {
+                        return connection;
+                    }
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement statement ? wrap(statement, (String) args[0]) : result;
+                });
+    }
+
+    private static Statement wrap(Statement statement, String sql) {
+        // Um mapa de binds por cada conjunto de parametros (Statement.add() inicia um novo)
+        List<Map<Object, Object>> bindings = new ArrayList<>();
+        bindings.add(new LinkedHashMap<>());
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class, Wrapped.class},
+                (proxy, method, args) -> {
+                    if (isUnwrap(method)) {
+                        return statement;
+                    }
+                    switch (method.getName()) {
+                        case "bind" -> bindings.get(bindings.size() - 1).put(args[0], describe(args[1]));
+                        case "bindNull" -> bindings.get(bindings.size() - 1).put(args[0], null);
+                        case "add" -> bindings.add(new LinkedHashMap<>());
+                        case "execute" -> log.info("SQL: {} binds: {}", sql, bindings);
+                        default -> { }
+                    }
+                    Object result = invoke(statement, method, args);
+                    // Os metodos fluentes devolvem o proprio statement: continuar pelo proxy
+                    return result == statement ? proxy : result;
+                });
+    }
+
+    private static boolean isUnwrap(Method method) {
+        return method.getName().equals("unwrap") && method.getParameterCount() == 0;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object describe(Object value) {
+        if (value instanceof Parameter parameter) {
+            value = parameter.getValue();
+        }
+        // Os arrays dos INSERT em bloco podem ter milhares de elementos: registar apenas o tamanho
+        if (value != null && value.getClass().isArray()) {
+            return value.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(value) + "]";
+        }
+        return value;
+    }
+}
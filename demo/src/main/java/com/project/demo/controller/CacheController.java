@@ -0,0 +1,23 @@
+package com.project.demo.controller;
+
+import com.project.demo.cache.EntityCache;
+import com.project.demo.dto.CacheStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    @Autowired
+    private List<EntityCache<?>> caches;
+
+    @GetMapping("/stats")
+    public Flux<CacheStatistics> getCacheStatistics() {
+        return Flux.fromIterable(caches)
+                .map(EntityCache::statistics);
+    }
+}
@@ -1,14 +1,22 @@
 package com.project.demo.controller;
 
+import com.project.demo.codec.SmileCodecs;
+import com.project.demo.dto.ChangeEvent;
+import com.project.demo.dto.KeysetPage;
 import com.project.demo.entity.Consumer;
 import com.project.demo.service.ConsumerService;
+import com.project.demo.web.ChangeStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/consumers")
 @Slf4j
@@ -19,20 +27,58 @@ public class ConsumerController {
 
     @PostMapping
     public Mono<ResponseEntity<Consumer>> createConsumer(@RequestBody Consumer consumer) {
-        log.info("Received request to create consumer with name: {}", consumer.getName());
+        log.debug("Received request to create consumer with name: {}", consumer.getName());
         return consumerService.createConsumer(consumer)
                 .map(ResponseEntity::ok);
     }
 
-    @GetMapping
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<Consumer> createConsumerBatch(@RequestBody Flux<Consumer> consumers) {
+        log.debug("Received request to create consumers in batch");
+        return consumerService.createConsumerBatch(consumers);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
     public Flux<Consumer> getAllConsumers() {
-        log.info("Received request to get all consumers");
+        log.debug("Received request to get all consumers");
         return consumerService.getAllConsumers();
     }
 
+    @GetMapping(params = "limit")
+    public Mono<KeysetPage<Consumer>> getConsumerPage(@RequestParam(required = false) Long after, @RequestParam int limit) {
+        log.debug("Received request for consumers page after id {} (limit {})", after, limit);
+        return consumerService.getConsumerPage(after, limit);
+    }
+
+    @GetMapping(params = "ids", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<Consumer> getConsumersByIds(@RequestParam List<Long> ids) {
+        log.debug("Received request for {} consumers by id", ids.size());
+        return consumerService.getConsumersByIds(ids);
+    }
+
+    @PostMapping(value = "/lookup", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<Consumer> lookupConsumers(@RequestBody List<Long> ids) {
+        log.debug("Received lookup request for {} consumers", ids.size());
+        return consumerService.getConsumersByIds(ids);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChangeEvent<Consumer>>> streamConsumerChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.debug("Received request for consumer change events (SSE) since {}", ChangeStreams.resumeFrom(since, lastEventId));
+        return ChangeStreams.serverSentEvents(consumerService.getConsumerChanges(ChangeStreams.resumeFrom(since, lastEventId)));
+    }
+
+    @GetMapping(value = "/changes", produces = {MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<ChangeEvent<Consumer>> getConsumerChanges(@RequestParam(required = false) Long since) {
+        log.debug("Received request for consumer change events since {}", since);
+        return consumerService.getConsumerChanges(since);
+    }
+
     @GetMapping("/{id}")
     public Mono<ResponseEntity<Consumer>> getConsumerById(@PathVariable Long id) {
-        log.info("Received request for consumer with id: {}", id);
+        log.debug("Received request for consumer with id: {}", id);
         return consumerService.getConsumerById(id)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
@@ -40,17 +86,25 @@ public class ConsumerController {
 
     @PutMapping("/{id}")
     public Mono<ResponseEntity<Consumer>> updateConsumer(@PathVariable Long id, @RequestBody Consumer consumer) {
-        log.info("Received request to update consumer with id: {}", id);
+        log.debug("Received request to update consumer with id: {}", id);
         return consumerService.updateConsumer(id, consumer)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<Consumer>> patchConsumer(@PathVariable Long id, @RequestBody Consumer consumer) {
+        log.debug("Received request to patch consumer with id: {}", id);
+        return consumerService.patchConsumer(id, consumer)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}")
     public Mono<ResponseEntity<Void>> deleteConsumer(@PathVariable Long id) {
-        log.info("Received request to delete consumer with id: {}", id);
+        log.debug("Received request to delete consumer with id: {}", id);
         return consumerService.deleteConsumer(id)
-                .then(Mono.just(ResponseEntity.noContent().<Void>build()))
-                .onErrorResume(ex -> Mono.just(ResponseEntity.badRequest().build()));
+                .map(deleted -> deleted ? ResponseEntity.noContent().<Void>build() : ResponseEntity.notFound().<Void>build())
+                .onErrorResume(IllegalStateException.class, ex -> Mono.just(ResponseEntity.badRequest().build())); // ainda tem relacoes
     }
 }
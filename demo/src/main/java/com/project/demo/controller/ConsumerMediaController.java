@@ -1,10 +1,19 @@
 package com.project.demo.controller;
 
+import com.project.demo.codec.SmileCodecs;
+import com.project.demo.dto.ChangeEvent;
+import com.project.demo.dto.KeysetPage;
+import com.project.demo.dto.MediaSubscriberCount;
 import com.project.demo.entity.ConsumerMedia;
 import com.project.demo.service.ConsumerMediaService;
+import com.project.demo.web.ChangeStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import lombok.extern.slf4j.Slf4j;
@@ -23,15 +32,70 @@ public class ConsumerMediaController {
                 .map(ResponseEntity::ok);
     }
 
-    @GetMapping
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<ConsumerMedia> createRelationshipBatch(@RequestBody Flux<ConsumerMedia> relationships) {
+        log.debug("Received request to create relationships in batch");
+        return consumerMediaService.createRelationshipBatch(relationships);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
     public Flux<ConsumerMedia> getAllRelationships() {
-        log.info("Received request to get all consumer-media relationships");
+        log.debug("Received request to get all consumer-media relationships");
         return consumerMediaService.getAllRelationships();
     }
 
+    @GetMapping(params = "limit")
+    public Mono<KeysetPage<ConsumerMedia>> getRelationshipsPage(@RequestParam(required = false) String after, @RequestParam int limit) {
+        log.debug("Received request for relationships page after {} (limit {})", after, limit);
+        long afterConsumerId = 0;
+        long afterMediaId = 0;
+        if (after != null) { // cursor no formato "consumerId:mediaId"
+            String[] parts = after.split(":");
+            try {
+                afterConsumerId = Long.parseLong(parts[0]);
+                afterMediaId = Long.parseLong(parts[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + after);
+            }
+        }
+        return consumerMediaService.getRelationshipsPage(afterConsumerId, afterMediaId, limit);
+    }
+
+    @GetMapping(params = "mediaId", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<ConsumerMedia> getRelationshipsByMediaId(@RequestParam Long mediaId) {
+        log.debug("Received request for relationships of media ID: {}", mediaId);
+        return consumerMediaService.getRelationshipsByMediaId(mediaId);
+    }
+
+    @GetMapping(params = "consumerId", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<ConsumerMedia> getRelationshipsByConsumerId(@RequestParam Long consumerId) {
+        log.debug("Received request for relationships of consumer ID: {}", consumerId);
+        return consumerMediaService.getRelationshipsByConsumerId(consumerId);
+    }
+
+    @GetMapping(value = "/counts", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<MediaSubscriberCount> getSubscriberCountsPerMedia() {
+        log.debug("Received request for subscriber counts per media");
+        return consumerMediaService.getSubscriberCountsPerMedia();
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChangeEvent<ConsumerMedia>>> streamRelationshipChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.debug("Received request for relationship change events (SSE) since {}", ChangeStreams.resumeFrom(since, lastEventId));
+        return ChangeStreams.serverSentEvents(consumerMediaService.getRelationshipChanges(ChangeStreams.resumeFrom(since, lastEventId)));
+    }
+
+    @GetMapping(value = "/changes", produces = {MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<ChangeEvent<ConsumerMedia>> getRelationshipChanges(@RequestParam(required = false) Long since) {
+        log.debug("Received request for relationship change events since {}", since);
+        return consumerMediaService.getRelationshipChanges(since);
+    }
+
     @GetMapping("/{consumerId}/{mediaId}")
     public Mono<ResponseEntity<ConsumerMedia>> getRelationship(@PathVariable Long consumerId, @PathVariable Long mediaId) {
-        log.info("Received request for relationship between consumer ID: {} and media ID: {}", consumerId, mediaId);
+        log.debug("Received request for relationship between consumer ID: {} and media ID: {}", consumerId, mediaId);
         return consumerMediaService.getRelationship(consumerId, mediaId)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
@@ -39,9 +103,8 @@ public class ConsumerMediaController {
 
     @DeleteMapping("/{consumerId}/{mediaId}")
     public Mono<ResponseEntity<Void>> deleteRelationship(@PathVariable Long consumerId, @PathVariable Long mediaId) {
-        log.info("Received request to delete relationship between consumer ID: {} and media ID: {}", consumerId, mediaId);
+        log.debug("Received request to delete relationship between consumer ID: {} and media ID: {}", consumerId, mediaId);
         return consumerMediaService.deleteRelationship(consumerId, mediaId)
-                .then(Mono.just(ResponseEntity.noContent().<Void>build()))
-                .onErrorResume(ex -> Mono.just(ResponseEntity.badRequest().build()));
+                .map(deleted -> deleted ? ResponseEntity.noContent().<Void>build() : ResponseEntity.notFound().<Void>build());
     }
 }
@@ -1,11 +1,20 @@
 package com.project.demo.controller;
 
+import com.project.demo.codec.SmileCodecs;
+import com.project.demo.dto.MediaStats;
+import com.project.demo.dto.MediaSubscriber;
+import com.project.demo.dto.ChangeEvent;
+import com.project.demo.dto.KeysetPage;
 import com.project.demo.entity.Media;
 import com.project.demo.service.MediaService;
+import com.project.demo.web.ChangeStreams;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -13,6 +22,9 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/media")
 @Slf4j
@@ -23,20 +35,97 @@ public class MediaController {
 
     @PostMapping
     public Mono<ResponseEntity<Media>> createMedia(@RequestBody Media media) {
-        log.info("Received request to create media with title: {}", media.getTitle());
+        log.debug("Received request to create media with title: {}", media.getTitle());
         return mediaService.createMedia(media)
                 .map(ResponseEntity::ok);
     }
 
-    @GetMapping
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<Media> createMediaBatch(@RequestBody Flux<Media> media) {
+        log.debug("Received request to create media in batch");
+        return mediaService.createMediaBatch(media);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
     public Flux<Media> getAllMedia() {
-        log.info("Received request to get all media");
+        log.debug("Received request to get all media");
         return mediaService.getAllMedia();
     }
 
+    @GetMapping(params = "limit")
+    public Mono<KeysetPage<Media>> getMediaPage(@RequestParam(required = false) Long after, @RequestParam int limit) {
+        log.debug("Received request for media page after id {} (limit {})", after, limit);
+        return mediaService.getMediaPage(after, limit);
+    }
+
+    @GetMapping(params = "ids", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<Media> getMediaByIds(@RequestParam List<Long> ids) {
+        log.debug("Received request for {} media items by id", ids.size());
+        return mediaService.getMediaByIds(ids);
+    }
+
+    @PostMapping(value = "/lookup", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<Media> lookupMedia(@RequestBody List<Long> ids) {
+        log.debug("Received lookup request for {} media items", ids.size());
+        return mediaService.getMediaByIds(ids);
+    }
+
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<Media> searchMedia(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+            @RequestParam(required = false) Short minRating,
+            @RequestParam(required = false) Short maxRating,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer limit) {
+        log.debug("Received media search (released from {} to {}, rating {} to {}, type {}, sort {}, limit {})",
+                releasedFrom, releasedTo, minRating, maxRating, type, sort, limit);
+        try {
+            return mediaService.searchMedia(releasedFrom, releasedTo, minRating, maxRating, type, sort, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/stats")
+    public Mono<MediaStats> getMediaStats(
+            @RequestParam(defaultValue = "8") short ratingAbove,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo) {
+        log.debug("Received request for media stats (rating above {}, released from {} to {})", ratingAbove, releasedFrom, releasedTo);
+        return mediaService.getMediaStats(ratingAbove, releasedFrom, releasedTo);
+    }
+
+    @GetMapping(value = "/subscribers", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<MediaSubscriber> getAllSubscribers() {
+        log.debug("Received request for subscribers of all media");
+        return mediaService.getAllSubscribers();
+    }
+
+    @GetMapping(value = "/{id}/subscribers", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<MediaSubscriber> getSubscribers(@PathVariable Long id) {
+        log.debug("Received request for subscribers of media with id: {}", id);
+        return mediaService.getSubscribers(id);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChangeEvent<Media>>> streamMediaChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.debug("Received request for media change events (SSE) since {}", ChangeStreams.resumeFrom(since, lastEventId));
+        return ChangeStreams.serverSentEvents(mediaService.getMediaChanges(ChangeStreams.resumeFrom(since, lastEventId)));
+    }
+
+    @GetMapping(value = "/changes", produces = {MediaType.APPLICATION_NDJSON_VALUE, SmileCodecs.SMILE_STREAM_VALUE})
+    public Flux<ChangeEvent<Media>> getMediaChanges(@RequestParam(required = false) Long since) {
+        log.debug("Received request for media change events since {}", since);
+        return mediaService.getMediaChanges(since);
+    }
+
     @GetMapping("/{id}")
     public Mono<ResponseEntity<Media>> getMediaById(@PathVariable Long id) {
-        log.info("Received request for media with id: {}", id);
+        log.debug("Received request for media with id: {}", id);
         return mediaService.getMediaById(id)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
@@ -44,18 +133,26 @@ public class MediaController {
 
     @PutMapping("/{id}")
     public Mono<ResponseEntity<Media>> updateMedia(@PathVariable Long id, @RequestBody Media media) {
-        log.info("Received request to update media with id: {}", id);
+        log.debug("Received request to update media with id: {}", id);
         return mediaService.updateMedia(id, media)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<Media>> patchMedia(@PathVariable Long id, @RequestBody Media media) {
+        log.debug("Received request to patch media with id: {}", id);
+        return mediaService.patchMedia(id, media)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}")
     public Mono<ResponseEntity<Void>> deleteMedia(@PathVariable Long id) {
-        log.info("Received request to delete media with id: {}", id);
+        log.debug("Received request to delete media with id: {}", id);
         return mediaService.deleteMedia(id)
-                .then(Mono.just(ResponseEntity.noContent().<Void>build()))
-                .onErrorResume(ex -> Mono.just(ResponseEntity.badRequest().build()));
+                .map(deleted -> deleted ? ResponseEntity.noContent().<Void>build() : ResponseEntity.notFound().<Void>build())
+                .onErrorResume(IllegalStateException.class, ex -> Mono.just(ResponseEntity.badRequest().build())); // ainda tem relacoes
     }
 
     @GetMapping("/test") //endpoint de teste para falhas no servidor
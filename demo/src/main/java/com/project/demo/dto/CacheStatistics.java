@@ -0,0 +1,86 @@
+package com.project.demo.dto;
+
+/**
+ * Contadores de uma cache de entidades
+ */
+public class CacheStatistics {
+
+    private String name;
+
+    private long size;
+
+    private long hits;
+
+    private long misses;
+
+    private double hitRate;
+
+    private long evictions;
+
+    // inclui os carregamentos vazios (IDs que nao existem), que nao ficam em cache
+    private long loadFailures;
+
+    public CacheStatistics() {}
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getLoadFailures() {
+        return loadFailures;
+    }
+
+    public void setLoadFailures(long loadFailures) {
+        this.loadFailures = loadFailures;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics [name=" + name + ", size=" + size + ", hits=" + hits + ", misses=" + misses
+                + ", hitRate=" + hitRate + ", evictions=" + evictions + ", loadFailures=" + loadFailures + "]";
+    }
+}
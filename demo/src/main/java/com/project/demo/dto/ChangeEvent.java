@@ -0,0 +1,66 @@
+package com.project.demo.dto;
+
+/**
+ * Alteracao numa tabela, no feed /api/{media|consumers|relationships}/changes.
+ * sequence e crescente por tabela e serve de token para retomar o feed (since=sequence, ou Last-Event-ID no SSE).
+ * RESYNC indica que houve eventos perdidos (cliente lento ou since fora do historico): o cliente deve recarregar a colecao;
+ * HEARTBEAT (sem entidade) mantem a conexao ativa e indica a sequencia do ultimo evento entregue, que tambem serve para retomar
+ */
+public class ChangeEvent<T> {
+
+    public enum Type { CREATED, UPDATED, DELETED, RESYNC, HEARTBEAT }
+
+    private long sequence;
+
+    private Type type;
+
+    private String key; // ID da entidade ("consumerId:mediaId" nas relacoes)
+
+    private T entity; // estado depois da alteracao (null em DELETED, RESYNC e HEARTBEAT)
+
+    public ChangeEvent() {}
+
+    public ChangeEvent(long sequence, Type type, String key, T entity) {
+        this.sequence = sequence;
+        this.type = type;
+        this.key = key;
+        this.entity = entity;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public void setEntity(T entity) {
+        this.entity = entity;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent [sequence=" + sequence + ", type=" + type + ", key=" + key + "]";
+    }
+}
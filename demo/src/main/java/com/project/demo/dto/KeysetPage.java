@@ -0,0 +1,67 @@
+package com.project.demo.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pagina de resultados obtida por keyset pagination (WHERE chave > cursor ORDER BY chave LIMIT n).
+ * O nextCursor e passado no parametro "after" do pedido seguinte; e null na ultima pagina
+ */
+public class KeysetPage<T> {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private List<T> items;
+
+    private String nextCursor;
+
+    public KeysetPage() {}
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Construir uma pagina a partir de uma query feita com LIMIT pageSize + 1: a linha extra so indica que ha mais paginas
+     * @param rows - linhas devolvidas pela query (no maximo pageSize + 1)
+     * @param pageSize - tamanho da pagina
+     * @param cursorOf - funcao que obtem o cursor de uma linha
+     * @return pagina com no maximo pageSize items
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, String> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(pageSize - 1)));
+    }
+
+    /**
+     * Limitar o tamanho de pagina pedido ao intervalo [1, MAX_LIMIT]
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPage [items=" + items.size() + ", nextCursor=" + nextCursor + "]";
+    }
+}
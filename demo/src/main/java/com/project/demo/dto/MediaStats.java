@@ -0,0 +1,100 @@
+package com.project.demo.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Estatisticas agregadas da tabela media, calculadas numa unica query no servidor
+ * (ou no cliente, num unico passo sobre o Flux de media, com o MediaStatsCollector)
+ */
+public class MediaStats {
+
+    private long totalCount;
+
+    private short ratingThreshold;
+
+    private long countAboveThreshold;
+
+    private Double averageRating;
+
+    private Double ratingStandardDeviation;
+
+    private String oldestTitle;
+
+    private LocalDate oldestReleaseDate;
+
+    private LocalDate newestReleaseDate;
+
+    public MediaStats() {}
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public short getRatingThreshold() {
+        return ratingThreshold;
+    }
+
+    public void setRatingThreshold(short ratingThreshold) {
+        this.ratingThreshold = ratingThreshold;
+    }
+
+    public long getCountAboveThreshold() {
+        return countAboveThreshold;
+    }
+
+    public void setCountAboveThreshold(long countAboveThreshold) {
+        this.countAboveThreshold = countAboveThreshold;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(Double averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public Double getRatingStandardDeviation() {
+        return ratingStandardDeviation;
+    }
+
+    public void setRatingStandardDeviation(Double ratingStandardDeviation) {
+        this.ratingStandardDeviation = ratingStandardDeviation;
+    }
+
+    public String getOldestTitle() {
+        return oldestTitle;
+    }
+
+    public void setOldestTitle(String oldestTitle) {
+        this.oldestTitle = oldestTitle;
+    }
+
+    public LocalDate getOldestReleaseDate() {
+        return oldestReleaseDate;
+    }
+
+    public void setOldestReleaseDate(LocalDate oldestReleaseDate) {
+        this.oldestReleaseDate = oldestReleaseDate;
+    }
+
+    public LocalDate getNewestReleaseDate() {
+        return newestReleaseDate;
+    }
+
+    public void setNewestReleaseDate(LocalDate newestReleaseDate) {
+        this.newestReleaseDate = newestReleaseDate;
+    }
+
+    @Override
+    public String toString() {
+        return "MediaStats [totalCount=" + totalCount + ", ratingThreshold=" + ratingThreshold
+                + ", countAboveThreshold=" + countAboveThreshold + ", averageRating=" + averageRating
+                + ", ratingStandardDeviation=" + ratingStandardDeviation + ", oldestTitle=" + oldestTitle
+                + ", oldestReleaseDate=" + oldestReleaseDate + ", newestReleaseDate=" + newestReleaseDate + "]";
+    }
+}
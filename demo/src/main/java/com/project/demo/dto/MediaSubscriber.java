@@ -0,0 +1,65 @@
+package com.project.demo.dto;
+
+/**
+ * Linha do join media - consumer_media - consumer: uma media e um dos seus subscritores
+ */
+public class MediaSubscriber {
+
+    private Long mediaId;
+
+    private String mediaTitle;
+
+    private Long consumerId;
+
+    private String consumerName;
+
+    private Integer consumerAge;
+
+    public MediaSubscriber() {}
+
+    public Long getMediaId() {
+        return mediaId;
+    }
+
+    public void setMediaId(Long mediaId) {
+        this.mediaId = mediaId;
+    }
+
+    public String getMediaTitle() {
+        return mediaTitle;
+    }
+
+    public void setMediaTitle(String mediaTitle) {
+        this.mediaTitle = mediaTitle;
+    }
+
+    public Long getConsumerId() {
+        return consumerId;
+    }
+
+    public void setConsumerId(Long consumerId) {
+        this.consumerId = consumerId;
+    }
+
+    public String getConsumerName() {
+        return consumerName;
+    }
+
+    public void setConsumerName(String consumerName) {
+        this.consumerName = consumerName;
+    }
+
+    public Integer getConsumerAge() {
+        return consumerAge;
+    }
+
+    public void setConsumerAge(Integer consumerAge) {
+        this.consumerAge = consumerAge;
+    }
+
+    @Override
+    public String toString() {
+        return "MediaSubscriber [mediaId=" + mediaId + ", mediaTitle=" + mediaTitle + ", consumerId=" + consumerId
+                + ", consumerName=" + consumerName + ", consumerAge=" + consumerAge + "]";
+    }
+}
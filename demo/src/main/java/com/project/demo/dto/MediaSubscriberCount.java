@@ -0,0 +1,34 @@
+package com.project.demo.dto;
+
+/**
+ * Numero de subscritores (consumers) de uma media
+ */
+public class MediaSubscriberCount {
+
+    private Long mediaId;
+
+    private Long subscriberCount;
+
+    public MediaSubscriberCount() {}
+
+    public Long getMediaId() {
+        return mediaId;
+    }
+
+    public void setMediaId(Long mediaId) {
+        this.mediaId = mediaId;
+    }
+
+    public Long getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    public void setSubscriberCount(Long subscriberCount) {
+        this.subscriberCount = subscriberCount;
+    }
+
+    @Override
+    public String toString() {
+        return "MediaSubscriberCount [mediaId=" + mediaId + ", subscriberCount=" + subscriberCount + "]";
+    }
+}
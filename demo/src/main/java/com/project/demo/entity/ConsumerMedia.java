@@ -1,27 +1,19 @@
 package com.project.demo.entity;
 
-import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Table;
 
+/**
+ * Relacao entre consumer e media. A chave primaria da tabela e composta (consumer_id, media_id),
+ * por isso a entidade nao tem @Id: as escritas sao feitas com queries explicitas no repositorio
+ */
 @Table("consumer_media")
 public class ConsumerMedia {
 
-    @Id
-    private Long id;
-
     private Long consumerId;
     private Long mediaId;
 
     public ConsumerMedia() {}
 
-    public Long getId() {
-        return id;
-    }
-
-    public void setId(Long id) {
-        this.id = id;
-    }
-
     public Long getConsumerId() {
         return consumerId;
     }
@@ -40,6 +32,6 @@ public class ConsumerMedia {
 
     @Override
     public String toString() {
-        return "ConsumerMedia [id=" + id + ", consumerId=" + consumerId + ", mediaId=" + mediaId + "]";
+        return "ConsumerMedia [consumerId=" + consumerId + ", mediaId=" + mediaId + "]";
     }
 }
@@ -0,0 +1,13 @@
+package com.project.demo.logging;
+
+/**
+ * Debug de SQL por pedido: a flag que o SqlDebugFilter (web) poe no Context do Reactor e que o
+ * InstrumentedConnectionFactory (config) le ao entregar a conexao
+ */
+public final class SqlDebug {
+
+    public static final String CONTEXT_KEY = SqlDebug.class.getName();
+
+    private SqlDebug() {
+    }
+}
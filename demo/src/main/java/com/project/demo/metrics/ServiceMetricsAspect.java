@@ -0,0 +1,73 @@
+package com.project.demo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Timer service.invocations para os metodos publicos dos services (as classes *Service; os ChangeFeed do mesmo pacote
+ * ficam de fora), com os tags service, operation, outcome e exception
+ * (os mesmos que spring.data.repository.invocations, ver MetricsConfig).
+ * Nos metodos que devolvem Mono/Flux o tempo e medido da subscricao ate ao sinal terminal, nao apenas a montagem do pipeline
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    static final String METRIC_NAME = "service.invocations";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("within(com.project.demo.service.*Service) && execution(public * *(..))")
+    public Object timeInvocation(ProceedingJoinPoint joinPoint) throws Throwable {
+        String service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String operation = joinPoint.getSignature().getName();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            stop(sample, service, operation, "ERROR", e);
+            throw e;
+        }
+
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                Timer.Sample subscribed = Timer.start(meterRegistry);
+                return mono.doOnSuccess(value -> stop(subscribed, service, operation, "SUCCESS", null))
+                        .doOnError(e -> stop(subscribed, service, operation, "ERROR", e))
+                        .doOnCancel(() -> stop(subscribed, service, operation, "CANCELED", null));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                Timer.Sample subscribed = Timer.start(meterRegistry);
+                return flux.doOnComplete(() -> stop(subscribed, service, operation, "SUCCESS", null))
+                        .doOnError(e -> stop(subscribed, service, operation, "ERROR", e))
+                        .doOnCancel(() -> stop(subscribed, service, operation, "CANCELED", null));
+            });
+        }
+        stop(sample, service, operation, "SUCCESS", null);
+        return result;
+    }
+
+    private void stop(Timer.Sample sample, String service, String operation, String outcome, Throwable error) {
+        sample.stop(Timer.builder(METRIC_NAME)
+                .description("Duracao das chamadas aos services")
+                .tag("service", service)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("exception", error == null ? "None" : error.getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+}
@@ -1,8 +1,12 @@
 package com.project.demo.repository;
 
+import com.project.demo.dto.MediaSubscriberCount;
 import com.project.demo.entity.ConsumerMedia;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
@@ -13,4 +17,25 @@ public interface ConsumerMediaRepository extends ReactiveCrudRepository<Consumer
     Mono<Boolean> existsByConsumerId(Long consumerId);
 
     Mono<Boolean> existsByMediaId(Long mediaId);
+
+    @Modifying
+    @Query("DELETE FROM consumer_media WHERE consumer_id = :consumerId AND media_id = :mediaId")
+    Mono<Integer> deleteByConsumerIdAndMediaId(Long consumerId, Long mediaId);
+
+    // servida pelo indice (media_id, consumer_id)
+    @Query("SELECT consumer_id, media_id FROM consumer_media WHERE media_id = :mediaId")
+    Flux<ConsumerMedia> findByMediaId(Long mediaId);
+
+    // servida pela chave primaria (consumer_id, media_id)
+    @Query("SELECT consumer_id, media_id FROM consumer_media WHERE consumer_id = :consumerId")
+    Flux<ConsumerMedia> findByConsumerId(Long consumerId);
+
+    // comparacao de tuplos servida pela chave primaria (consumer_id, media_id)
+    @Query("SELECT consumer_id, media_id FROM consumer_media "
+            + "WHERE (consumer_id, media_id) > (:afterConsumerId, :afterMediaId) "
+            + "ORDER BY consumer_id, media_id LIMIT :limit")
+    Flux<ConsumerMedia> findPageAfter(long afterConsumerId, long afterMediaId, int limit);
+
+    @Query("SELECT media_id, COUNT(*) AS subscriber_count FROM consumer_media GROUP BY media_id ORDER BY media_id")
+    Flux<MediaSubscriberCount> countSubscribersPerMedia();
 }
@@ -2,10 +2,29 @@ package com.project.demo.repository;
 
 import com.project.demo.entity.Consumer;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Repository
 public interface ConsumerRepository extends ReactiveCrudRepository<Consumer, Long> {
 
+    @Query("SELECT * FROM consumer WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Consumer> findPageAfter(long after, int limit);
+
+    @Query("UPDATE consumer SET name = :name, age = :age, gender = :gender WHERE id = :id RETURNING *")
+    Mono<Consumer> updateById(Long id, String name, Integer age, String gender);
+
+    // so altera as colunas recebidas (os parametros null mantem o valor atual)
+    @Query("UPDATE consumer SET name = COALESCE(:name, name), age = COALESCE(:age, age), gender = COALESCE(:gender, gender) "
+            + "WHERE id = :id RETURNING *")
+    Mono<Consumer> patchById(Long id, String name, Integer age, String gender);
+
+    // nao apaga consumers com relacoes; devolve o numero de linhas apagadas
+    @Modifying
+    @Query("DELETE FROM consumer WHERE id = :id AND NOT EXISTS (SELECT 1 FROM consumer_media WHERE consumer_id = :id)")
+    Mono<Integer> deleteByIdIfUnreferenced(Long id);
 }
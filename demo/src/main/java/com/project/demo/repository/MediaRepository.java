@@ -2,10 +2,33 @@ package com.project.demo.repository;
 
 import com.project.demo.entity.Media;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
 
 @Repository
 public interface MediaRepository extends ReactiveCrudRepository<Media, Long> {
 
+    @Query("SELECT * FROM media WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Media> findPageAfter(long after, int limit);
+
+    @Query("UPDATE media SET title = :title, release_date = :releaseDate, average_rating = :averageRating, type = :type "
+            + "WHERE id = :id RETURNING *")
+    Mono<Media> updateById(Long id, String title, LocalDate releaseDate, Short averageRating, String type);
+
+    // so altera as colunas recebidas (os parametros null mantem o valor atual)
+    @Query("UPDATE media SET title = COALESCE(:title, title), release_date = COALESCE(:releaseDate, release_date), "
+            + "average_rating = COALESCE(:averageRating, average_rating), type = COALESCE(:type, type) "
+            + "WHERE id = :id RETURNING *")
+    Mono<Media> patchById(Long id, String title, LocalDate releaseDate, Short averageRating, String type);
+
+    // nao apaga medias com relacoes; devolve o numero de linhas apagadas
+    @Modifying
+    @Query("DELETE FROM media WHERE id = :id AND NOT EXISTS (SELECT 1 FROM consumer_media WHERE media_id = :id)")
+    Mono<Integer> deleteByIdIfUnreferenced(Long id);
 }
@@ -0,0 +1,30 @@
+package com.project.demo.service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Suporte aos inserts em lote. Cada bloco e enviado como um unico
+ * INSERT ... SELECT * FROM unnest($1::tipo[], ...), com um array por coluna: um round trip por bloco
+ * e o texto da query e sempre o mesmo (reutiliza o prepared statement), qualquer que seja o tamanho do bloco
+ */
+final class BatchInserts {
+
+    private BatchInserts() {}
+
+    /**
+     * Extrair uma coluna de um bloco de linhas para um array, pela ordem das linhas
+     * @param rows - linhas do bloco
+     * @param getter - valor da coluna em cada linha
+     * @param arrayFactory - construtor do array com o tipo da coluna
+     * @return array com um valor por linha
+     */
+    static <T, C> C[] column(List<T> rows, Function<T, C> getter, IntFunction<C[]> arrayFactory) {
+        C[] column = arrayFactory.apply(rows.size());
+        for (int i = 0; i < column.length; i++) {
+            column[i] = getter.apply(rows.get(i));
+        }
+        return column;
+    }
+}
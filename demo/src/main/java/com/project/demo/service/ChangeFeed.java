@@ -0,0 +1,168 @@
+package com.project.demo.service;
+
+import com.project.demo.dto.ChangeEvent;
+import com.project.demo.dto.ChangeEvent.Type;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import lombok.extern.slf4j.Slf4j;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Feed de alteracoes de uma tabela, publicado pelos services depois de cada escrita.
+ * Os eventos ficam num Sinks.Many de replay limitado aos ultimos historySize eventos, o que permite retomar o feed
+ * (since=sequencia) sem recarregar a colecao. Cada subscritor tem um buffer proprio de subscriberBufferSize eventos:
+ * um cliente lento que o enche recebe um RESYNC e o feed termina (o cliente retoma com since ou recarrega),
+ * sem atrasar as escritas nem os outros subscritores.
+ * Os services publicam depois do TableVersions.bumpAfter, para que um cliente que reaja a um evento ja receba o ETag novo.
+ * As sequencias comecam no instante de arranque (ms * 1000), por isso um since de uma execucao anterior do servidor
+ * fica sempre antes do historico e leva a um RESYNC
+ */
+@Slf4j
+public class ChangeFeed<T> implements MeterBinder {
+
+    private final String name;
+
+    private final int historySize;
+
+    private final int subscriberBufferSize;
+
+    private final Function<T, String> keyOf;
+
+    private final Sinks.Many<ChangeEvent<T>> sink;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private long sequence = System.currentTimeMillis() * 1000;
+
+    private Counter resyncs;
+
+    public ChangeFeed(String name, int historySize, int subscriberBufferSize, Function<T, String> keyOf) {
+        this.name = name;
+        this.historySize = historySize;
+        this.subscriberBufferSize = subscriberBufferSize;
+        this.keyOf = keyOf;
+        this.sink = Sinks.many().replay().limit(historySize);
+    }
+
+    public void created(T entity) {
+        publish(Type.CREATED, keyOf.apply(entity), entity);
+    }
+
+    public void updated(T entity) {
+        publish(Type.UPDATED, keyOf.apply(entity), entity);
+    }
+
+    public void deleted(String key) {
+        publish(Type.DELETED, key, null);
+    }
+
+    // A sequencia e a emissao no mesmo bloco: os eventos saem pela ordem das sequencias e o sink nunca e chamado em paralelo
+    private synchronized void publish(Type type, String key, T entity) {
+        sink.emitNext(new ChangeEvent<>(++sequence, type, key, entity), Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    public synchronized long currentSequence() {
+        return sequence;
+    }
+
+    /**
+     * Obter o feed de alteracoes: comeca com um HEARTBEAT com since (ou a sequencia atual, sem since), seguido dos eventos
+     * depois dessa sequencia e de um HEARTBEAT a cada heartbeat
+     * @param since - sequencia do ultimo evento recebido (null para receber so os novos)
+     * @param heartbeat - intervalo dos HEARTBEAT (abaixo do idle timeout das conexoes)
+     * @return Flux sem fim com os eventos; termina com RESYNC se o evento seguinte a since ja nao estiver no historico ou se o
+     * subscritor ficar para tras
+     */
+    public Flux<ChangeEvent<T>> changes(Long since, Duration heartbeat) {
+        return Flux.defer(() -> {
+            long head = currentSequence();
+            long from = since != null ? since : head;
+            // O replay guarda as sequencias (head - historySize, head]: since fora desse intervalo nao da para retomar
+            if (from < head - historySize || from > head) {
+                log.debug("Change feed {}: since {} outside history (head {}), resync", name, since, head);
+                countResync();
+                return Flux.just(event(Type.RESYNC, head));
+            }
+            // O replay entrega o historico e depois os eventos novos, sem falhas entre os dois; o filtro salta o que o cliente ja tem.
+            // Escritas entre ler head e subscrever o sink podem tirar since + 1 do replay: se o primeiro evento nao for since + 1,
+            // o cliente ficaria com uma falha. So o primeiro precisa de ser verificado, os seguintes sao consecutivos
+            Flux<ChangeEvent<T>> events = sink.asFlux()
+                    .filter(event -> event.getSequence() > from)
+                    .switchOnFirst((first, replay) -> {
+                        if (!first.hasValue() || first.get().getSequence() == from + 1) {
+                            return replay;
+                        }
+                        log.debug("Change feed {}: since {} outside history (oldest {}), resync", name, since,
+                                first.get().getSequence());
+                        countResync();
+                        return Mono.fromSupplier(() -> event(Type.RESYNC, currentSequence()));
+                    })
+                    .onBackpressureBuffer(subscriberBufferSize, BufferOverflowStrategy.ERROR)
+                    .onErrorResume(Exceptions::isOverflow, overflow -> {
+                        log.debug("Change feed {}: subscriber buffer full, resync", name);
+                        countResync();
+                        return Mono.fromSupplier(() -> event(Type.RESYNC, currentSequence()));
+                    });
+            Flux<ChangeEvent<T>> heartbeats = Flux.interval(heartbeat, heartbeat)
+                    .onBackpressureDrop()
+                    .map(tick -> event(Type.HEARTBEAT, 0));
+            // O HEARTBEAT leva a sequencia do ultimo evento entregue a este subscritor (e nao a do feed, que pode ir a frente
+            // do buffer): pode ser usado como since sem saltar eventos
+            long[] delivered = {from};
+            return Flux.merge(events, heartbeats)
+                    .map(event -> {
+                        if (event.getType() == Type.HEARTBEAT) {
+                            return event(Type.HEARTBEAT, delivered[0]);
+                        }
+                        delivered[0] = event.getSequence();
+                        return event;
+                    })
+                    .takeUntil(event -> event.getType() == Type.RESYNC)
+                    .startWith(event(Type.HEARTBEAT, from))
+                    .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                    .doFinally(signal -> subscribers.decrementAndGet());
+        });
+    }
+
+    private ChangeEvent<T> event(Type type, long sequence) {
+        return new ChangeEvent<>(sequence, type, null, null);
+    }
+
+    private void countResync() {
+        if (resyncs != null) {
+            resyncs.increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("changes.subscribers", subscribers, AtomicInteger::get)
+                .tag("table", name)
+                .description("Clientes ligados ao feed de alteracoes")
+                .register(registry);
+        Gauge.builder("changes.sequence", this, ChangeFeed::currentSequence)
+                .tag("table", name)
+                .register(registry);
+        resyncs = Counter.builder("changes.resyncs")
+                .tag("table", name)
+                .description("Feeds terminados com RESYNC (cliente lento ou since fora do historico)")
+                .register(registry);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -1,20 +1,49 @@
 package com.project.demo.service;
 
+import com.project.demo.cache.TableVersions;
+import com.project.demo.cache.TableVersions.Table;
+import com.project.demo.config.ChangeFeedConfig;
+import com.project.demo.dto.ChangeEvent;
+import com.project.demo.dto.KeysetPage;
+import com.project.demo.dto.MediaSubscriberCount;
 import com.project.demo.entity.ConsumerMedia;
 import com.project.demo.repository.ConsumerMediaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+
 @Service
 @Slf4j
 public class ConsumerMediaService {
 
+    // Relacoes repetidas sao ignoradas; o RETURNING so devolve as linhas realmente inseridas
+    private static final String INSERT_RELATIONSHIP_SQL = "INSERT INTO consumer_media (consumer_id, media_id) "
+            + "SELECT * FROM unnest($1::bigint[], $2::bigint[]) ON CONFLICT DO NOTHING RETURNING consumer_id, media_id";
+
     @Autowired
     private ConsumerMediaRepository consumerMediaRepository;
 
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private ChangeFeed<ConsumerMedia> relationshipChanges;
+
+    @Value("${project.ingest.chunk-size:1000}")
+    private int ingestChunkSize;
+
+    @Value("${project.changes.heartbeat:15s}")
+    private Duration changesHeartbeat;
+
     /**
      * Criar nova relação entre consumer e media
      * @param consumerMedia - relação para ser guardada entre user e media
@@ -22,23 +51,98 @@ public class ConsumerMediaService {
      */
     public Mono<ConsumerMedia> createRelationship(ConsumerMedia consumerMedia) {
         return consumerMediaRepository.save(consumerMedia)
+                .transform(write -> tableVersions.bumpAfter(Table.CONSUMER_MEDIA, write))
+                .doOnNext(relationshipChanges::created)
                 .doOnSuccess(savedRelation -> 
-                    log.info("Created relationship between consumer ID: {} and media ID: {}", 
+                    log.debug("Created relationship between consumer ID: {} and media ID: {}", 
                     savedRelation.getConsumerId(), savedRelation.getMediaId()))
                 .doOnError(error -> 
                     log.error("Failed to create relationship: {}", error.getMessage()));
     }
 
+    /**
+     * Criar varias relacoes em lote, em blocos de project.ingest.chunk-size (um INSERT por bloco)
+     * @param relationships - relacoes a criar (stream)
+     * @return Flux com as relacoes inseridas (as que ja existiam nao sao devolvidas)
+     */
+    public Flux<ConsumerMedia> createRelationshipBatch(Flux<ConsumerMedia> relationships) {
+        return relationships.buffer(ingestChunkSize)
+                .concatMap(chunk -> databaseClient.sql(INSERT_RELATIONSHIP_SQL)
+                        .bind(0, BatchInserts.column(chunk, ConsumerMedia::getConsumerId, Long[]::new))
+                        .bind(1, BatchInserts.column(chunk, ConsumerMedia::getMediaId, Long[]::new))
+                        .map((row, metadata) -> {
+                            ConsumerMedia inserted = new ConsumerMedia();
+                            inserted.setConsumerId(row.get("consumer_id", Long.class));
+                            inserted.setMediaId(row.get("media_id", Long.class));
+                            return inserted;
+                        })
+                        .all()
+                        .doOnComplete(() -> log.debug("Processed batch of {} relationships", chunk.size())))
+                .transform(write -> tableVersions.bumpAfter(Table.CONSUMER_MEDIA, write))
+                .doOnNext(relationshipChanges::created)
+                .doOnError(error -> log.error("Failed to create relationship batch: {}", error.getMessage()));
+    }
+
     /**
      * Obter todas as relacoes  
      * @return Flux com todas as relacoes
      */
     public Flux<ConsumerMedia> getAllRelationships() {
         return consumerMediaRepository.findAll()
-                .doOnComplete(() -> log.info("Retrieved all consumer-media relationships"))
+                .doOnComplete(() -> log.debug("Retrieved all consumer-media relationships"))
                 .doOnError(error -> log.error("Failed to retrieve relationships: {}", error.getMessage()));
     }
 
+    /**
+     * Obter uma pagina de relacoes por ordem de (consumerId, mediaId), com keyset pagination sobre a chave primaria.
+     * O cursor de cada pagina tem o formato "consumerId:mediaId"
+     * @param afterConsumerId - consumerId da ultima relacao da pagina anterior (0 para a primeira pagina)
+     * @param afterMediaId - mediaId da ultima relacao da pagina anterior (0 para a primeira pagina)
+     * @param limit - tamanho da pagina, limitado a {@link KeysetPage#MAX_LIMIT}
+     * @return Mono com a pagina e o cursor da pagina seguinte
+     */
+    public Mono<KeysetPage<ConsumerMedia>> getRelationshipsPage(long afterConsumerId, long afterMediaId, int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        return consumerMediaRepository.findPageAfter(afterConsumerId, afterMediaId, pageSize + 1)
+                .collectList()
+                .map(rows -> KeysetPage.of(rows, pageSize,
+                        relationship -> relationship.getConsumerId() + ":" + relationship.getMediaId()))
+                .doOnSuccess(page -> log.debug("Retrieved relationships page after {}:{}: {}", afterConsumerId, afterMediaId, page))
+                .doOnError(error -> log.error("Failed to retrieve relationships page: {}", error.getMessage()));
+    }
+
+    /**
+     * Obter as relacoes de uma media (consumers subscritos)
+     * @param mediaId - ID da media
+     * @return Flux com as relacoes da media
+     */
+    public Flux<ConsumerMedia> getRelationshipsByMediaId(Long mediaId) {
+        return consumerMediaRepository.findByMediaId(mediaId)
+                .doOnComplete(() -> log.debug("Retrieved relationships for media ID: {}", mediaId))
+                .doOnError(error -> log.error("Failed to retrieve relationships for media ID {}: {}", mediaId, error.getMessage()));
+    }
+
+    /**
+     * Obter as relacoes de um consumer (medias subscritas)
+     * @param consumerId - ID do consumer
+     * @return Flux com as relacoes do consumer
+     */
+    public Flux<ConsumerMedia> getRelationshipsByConsumerId(Long consumerId) {
+        return consumerMediaRepository.findByConsumerId(consumerId)
+                .doOnComplete(() -> log.debug("Retrieved relationships for consumer ID: {}", consumerId))
+                .doOnError(error -> log.error("Failed to retrieve relationships for consumer ID {}: {}", consumerId, error.getMessage()));
+    }
+
+    /**
+     * Obter o numero de subscritores de cada media (apenas medias com pelo menos um subscritor)
+     * @return Flux com a contagem por media, ordenado por mediaId
+     */
+    public Flux<MediaSubscriberCount> getSubscriberCountsPerMedia() {
+        return consumerMediaRepository.countSubscribersPerMedia()
+                .doOnComplete(() -> log.debug("Retrieved subscriber counts per media"))
+                .doOnError(error -> log.error("Failed to retrieve subscriber counts per media: {}", error.getMessage()));
+    }
+
     /**
      * Obter relação específica
      * @param consumerId - ID do consumer
@@ -49,7 +153,7 @@ public class ConsumerMediaService {
         return consumerMediaRepository.findByConsumerIdAndMediaId(consumerId, mediaId)
                 .doOnSuccess(relationship -> {
                     if (relationship != null) {
-                        log.info("Retrieved relationship between consumer ID: {} and media ID: {}", consumerId, mediaId);
+                        log.debug("Retrieved relationship between consumer ID: {} and media ID: {}", consumerId, mediaId);
                     }
                 })
                 .doOnError(error -> 
@@ -60,14 +164,29 @@ public class ConsumerMediaService {
      * Apagar relação específica
      * @param consumerId - ID do consumer
      * @param mediaId - ID da media
-     * @return Mono indicando a conclusão da operação de exclusão
+     * @return Mono com true se a relacao foi apagada, false se nao existir
      */
-    public Mono<Void> deleteRelationship(Long consumerId, Long mediaId) {
-        return consumerMediaRepository.findByConsumerIdAndMediaId(consumerId, mediaId)
-                .flatMap(existingRelationship -> consumerMediaRepository.delete(existingRelationship)
-                    .doOnSuccess(unused -> 
-                        log.info("Deleted relationship between consumer ID: {} and media ID: {}", consumerId, mediaId)))
+    public Mono<Boolean> deleteRelationship(Long consumerId, Long mediaId) {
+        return consumerMediaRepository.deleteByConsumerIdAndMediaId(consumerId, mediaId) // um unico DELETE pela chave composta
+                .transform(write -> tableVersions.bumpAfter(Table.CONSUMER_MEDIA, write))
+                .doOnSuccess(deletedRows -> {
+                    if (deletedRows > 0) {
+                        log.debug("Deleted relationship between consumer ID: {} and media ID: {}", consumerId, mediaId);
+                        relationshipChanges.deleted(ChangeFeedConfig.relationshipKey(consumerId, mediaId));
+                    }
+                })
                 .doOnError(error -> 
-                    log.error("Failed to delete relationship between consumer ID: {} and media ID: {}", consumerId, mediaId, error));
+                    log.error("Failed to delete relationship between consumer ID: {} and media ID: {}", consumerId, mediaId, error))
+                .map(deletedRows -> deletedRows > 0);
+    }
+
+    /**
+     * Obter o feed de alteracoes das relacoes (criacoes, atualizacoes e remocoes)
+     * @param since - sequencia do ultimo evento recebido (null para receber so as alteracoes novas)
+     * @return Flux sem fim com os eventos; termina com RESYNC quando o cliente tem de recarregar a colecao
+     */
+    public Flux<ChangeEvent<ConsumerMedia>> getRelationshipChanges(Long since) {
+        log.debug("Opening relationship change feed since {}", since);
+        return relationshipChanges.changes(since, changesHeartbeat);
     }
 }
@@ -1,23 +1,59 @@
 package com.project.demo.service;
 
+import com.project.demo.cache.EntityCache;
+import com.project.demo.cache.TableVersions;
+import com.project.demo.cache.TableVersions.Table;
+import com.project.demo.dto.ChangeEvent;
+import com.project.demo.dto.KeysetPage;
 import com.project.demo.entity.Consumer;
 import com.project.demo.repository.ConsumerRepository;
-import com.project.demo.repository.ConsumerMediaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
 @Service
 @Slf4j
 public class ConsumerService {
 
+    // Numero maximo de IDs por query IN (...), para nao exceder o limite de parametros do driver
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    // Os users inseridos sao lidos do RETURNING *: o Postgres nao garante que venham pela ordem dos arrays
+    private static final String INSERT_CONSUMER_SQL = "INSERT INTO consumer (name, age, gender) "
+            + "SELECT * FROM unnest($1::varchar[], $2::int[], $3::varchar[]) RETURNING *";
+
     @Autowired
     private ConsumerRepository consumerRepository;
 
     @Autowired
-    private ConsumerMediaRepository consumerMediaRepository;
+    private EntityCache<Consumer> consumerCache;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private ChangeFeed<Consumer> consumerChanges;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private R2dbcEntityTemplate entityTemplate;
+
+    @Value("${project.ingest.chunk-size:1000}")
+    private int ingestChunkSize;
+
+    @Value("${project.changes.heartbeat:15s}")
+    private Duration changesHeartbeat;
 
     /**
      * Criar novo user (User = consumer)
@@ -26,33 +62,83 @@ public class ConsumerService {
      */
     public Mono<Consumer> createConsumer(Consumer consumer) {
         return consumerRepository.save(consumer)
-                .doOnSuccess(savedConsumer -> log.info("Created new consumer with ID: {}", savedConsumer.getId()))
+                .transform(write -> tableVersions.bumpAfter(Table.CONSUMER, write))
+                .doOnNext(consumerChanges::created)
+                .doOnSuccess(savedConsumer -> log.debug("Created new consumer with ID: {}", savedConsumer.getId()))
                 .doOnError(error -> log.error("Failed to create consumer: {}", error.getMessage()));
     }
 
+    /**
+     * Criar varios users em lote: os users sao agrupados em blocos de project.ingest.chunk-size
+     * e cada bloco e inserido com um unico INSERT (um round trip)
+     * @param consumers users a criar (stream)
+     * @return Flux com os users criados, lidos das linhas inseridas (com os IDs gerados)
+     */
+    public Flux<Consumer> createConsumerBatch(Flux<Consumer> consumers) {
+        return consumers.buffer(ingestChunkSize)
+                .concatMap(chunk -> databaseClient.sql(INSERT_CONSUMER_SQL)
+                        .bind(0, BatchInserts.column(chunk, Consumer::getName, String[]::new))
+                        .bind(1, BatchInserts.column(chunk, Consumer::getAge, Integer[]::new))
+                        .bind(2, BatchInserts.column(chunk, Consumer::getGender, String[]::new))
+                        .map((row, metadata) -> entityTemplate.getConverter().read(Consumer.class, row, metadata))
+                        .all()
+                        .doOnComplete(() -> log.debug("Created batch of {} consumers", chunk.size())))
+                .transform(write -> tableVersions.bumpAfter(Table.CONSUMER, write))
+                .doOnNext(consumerChanges::created)
+                .doOnError(error -> log.error("Failed to create consumer batch: {}", error.getMessage()));
+    }
+
     /**
      * Obter todos os users
      * @return Mono com o consumidor
      */
     public Flux<Consumer> getAllConsumers() {
         return consumerRepository.findAll()
-                .doOnComplete(() -> log.info("Retrieved all consumers"))
+                .doOnComplete(() -> log.debug("Retrieved all consumers"))
                 .doOnError(error -> log.error("Failed to retrieve consumers: {}", error.getMessage()));
     }
 
+    /**
+     * Obter uma pagina de consumidores por ordem de ID (keyset pagination: WHERE id > after ORDER BY id LIMIT n)
+     * @param after - ID do ultimo item da pagina anterior (null para a primeira pagina)
+     * @param limit - tamanho da pagina, limitado a {@link KeysetPage#MAX_LIMIT}
+     * @return Mono com a pagina e o cursor da pagina seguinte
+     */
+    public Mono<KeysetPage<Consumer>> getConsumerPage(Long after, int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        return consumerRepository.findPageAfter(after != null ? after : 0L, pageSize + 1)
+                .collectList()
+                .map(rows -> KeysetPage.of(rows, pageSize, consumer -> String.valueOf(consumer.getId())))
+                .doOnSuccess(page -> log.debug("Retrieved consumidores page after ID {}: {}", after, page))
+                .doOnError(error -> log.error("Failed to retrieve consumidores page after ID {}: {}", after, error.getMessage()));
+    }
+
     /**
      * Obter consumidor por ID
      * @param id do consumidor
      * @return Mono com o consumidor específico
      */
     public Mono<Consumer> getConsumerById(Long id) {
-        return consumerRepository.findById(id)
+        return consumerCache.get(id, consumerRepository::findById)
                 .doOnSuccess(consumer -> {
-                    if (consumer != null) log.info("Retrieved consumer with ID: {}", id);
+                    if (consumer != null) log.debug("Retrieved consumer with ID: {}", id);
                 })
                 .doOnError(error -> log.error("Failed to retrieve consumer with ID {}: {}", id, error.getMessage()));
     }
 
+    /**
+     * Obter varios consumidores pelos seus IDs, com queries WHERE id IN (...) em blocos de {@value #LOOKUP_CHUNK_SIZE} IDs
+     * @param ids IDs dos consumidores (IDs repetidos sao ignorados)
+     * @return Flux com os consumidores encontrados
+     */
+    public Flux<Consumer> getConsumersByIds(Collection<Long> ids) {
+        return Flux.fromIterable(new LinkedHashSet<>(ids))
+                .buffer(LOOKUP_CHUNK_SIZE)
+                .concatMap(consumerRepository::findAllById)
+                .doOnComplete(() -> log.debug("Retrieved consumers for {} requested IDs", ids.size()))
+                .doOnError(error -> log.error("Failed to retrieve consumers by IDs: {}", error.getMessage()));
+    }
+
     /**
      * Dar update a um consumidor 
      * @param id id do consumidor a ser alterado
@@ -60,31 +146,69 @@ public class ConsumerService {
      * @return Mono com o consumidor atualizado
      */
     public Mono<Consumer> updateConsumer(Long id, Consumer consumer) {
-        return consumerRepository.findById(id)
-                .flatMap(existingConsumer -> {
-                    consumer.setId(id);
-                    return consumerRepository.save(consumer);
-                })
-                .doOnSuccess(updatedConsumer -> log.info("Updated consumer with ID: {}", id))
+        // UPDATE ... RETURNING num unico round trip (vazio se o ID nao existir)
+        return consumerRepository.updateById(id, consumer.getName(), consumer.getAge(), consumer.getGender())
+                .transform(write -> consumerCache.invalidateAfter(id, write))
+                .transform(write -> tableVersions.bumpAfter(Table.CONSUMER, write))
+                .doOnNext(consumerChanges::updated)
+                .doOnSuccess(updatedConsumer -> log.debug("Updated consumer with ID: {}", id))
                 .doOnError(error -> log.error("Failed to update consumer with ID {}: {}", id, error.getMessage()));
     }
 
+    /**
+     * Dar update parcial a um consumidor: so os campos recebidos (nao null) sao alterados
+     * @param id id do consumidor a ser alterado
+     * @param consumer consumidor com os campos a alterar
+     * @return Mono com o consumidor atualizado (vazio se nao existir)
+     */
+    public Mono<Consumer> patchConsumer(Long id, Consumer consumer) {
+        return consumerRepository.patchById(id, consumer.getName(), consumer.getAge(), consumer.getGender())
+                .transform(write -> consumerCache.invalidateAfter(id, write))
+                .transform(write -> tableVersions.bumpAfter(Table.CONSUMER, write))
+                .doOnNext(consumerChanges::updated)
+                .doOnSuccess(patched -> log.debug("Patched consumer with ID: {}", id))
+                .doOnError(error -> log.error("Failed to patch consumer with ID {}: {}", id, error.getMessage()));
+    }
+
     /**
      * Apagar consumidor do repositorio se este não tiver relacao com nenhuma media
      * @param id ID do consumidor a ser apagado
-     * @return Mono indicando a conclusão da operação de exclusão
+     * @return Mono com true se o consumidor foi apagado, false se o ID nao existir; IllegalStateException se ainda tiver relacoes
      */
-    public Mono<Void> deleteConsumer(Long id) {
-        return consumerMediaRepository.existsByConsumerId(id)
-                .flatMap(hasRelationship -> {
-                    if (hasRelationship) {
-                        log.warn("Cannot delete consumer with ID: {} due to existing relationships", id);
-                        return Mono.error(new IllegalStateException("Cannot delete Consumer with existing relationships"));
-                    } else {
-                        return consumerRepository.deleteById(id)
-                                .doOnSuccess(unused -> log.info("Deleted consumer with ID: {}", id));
+    public Mono<Boolean> deleteConsumer(Long id) {
+        return consumerRepository.deleteByIdIfUnreferenced(id) // DELETE ... WHERE NOT EXISTS (relacoes), sem check-then-act
+                .flatMap(deletedRows -> {
+                    if (deletedRows > 0) {
+                        log.debug("Deleted consumer with ID: {}", id);
+                        return Mono.just(true);
+                    }
+                    // nada foi apagado: com o ID ainda na tabela, e porque tem relacoes (so neste caso ha uma segunda query)
+                    return consumerRepository.existsById(id)
+                            .flatMap(exists -> {
+                                if (exists) {
+                                    log.warn("Cannot delete consumer with ID: {} due to existing relationships", id);
+                                    return Mono.<Boolean>error(new IllegalStateException("Cannot delete Consumer with existing relationships"));
+                                }
+                                return Mono.just(false);
+                            });
+                })
+                .transform(write -> consumerCache.invalidateAfter(id, write))
+                .transform(write -> tableVersions.bumpAfter(Table.CONSUMER, write))
+                .doOnNext(deleted -> {
+                    if (deleted) {
+                        consumerChanges.deleted(String.valueOf(id));
                     }
                 })
                 .doOnError(error -> log.error("Failed to delete consumer with ID {}: {}", id, error.getMessage()));
     }
+
+    /**
+     * Obter o feed de alteracoes dos consumers (criacoes, atualizacoes e remocoes)
+     * @param since - sequencia do ultimo evento recebido (null para receber so as alteracoes novas)
+     * @return Flux sem fim com os eventos; termina com RESYNC quando o cliente tem de recarregar a colecao
+     */
+    public Flux<ChangeEvent<Consumer>> getConsumerChanges(Long since) {
+        log.debug("Opening consumer change feed since {}", since);
+        return consumerChanges.changes(since, changesHeartbeat);
+    }
 }
@@ -1,24 +1,76 @@
 package com.project.demo.service;
 
+import com.project.demo.dto.MediaStats;
+import com.project.demo.dto.MediaSubscriber;
+import com.project.demo.cache.EntityCache;
+import com.project.demo.cache.TableVersions;
+import com.project.demo.cache.TableVersions.Table;
+import com.project.demo.dto.ChangeEvent;
+import com.project.demo.dto.KeysetPage;
 import com.project.demo.entity.Media;
 import com.project.demo.repository.MediaRepository;
-import com.project.demo.repository.ConsumerMediaRepository;
+
+import io.r2dbc.spi.Row;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
 @Service
 @Slf4j
 public class MediaService {
 
+    // Numero maximo de IDs por query IN (...), para nao exceder o limite de parametros do driver
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    // Linhas pedidas de cada vez ao cursor do Postgres nas queries de join em streaming
+    private static final int SUBSCRIBERS_FETCH_SIZE = 512;
+
+    private static final String SUBSCRIBERS_SQL = "SELECT m.id AS media_id, m.title, c.id AS consumer_id, c.name, c.age "
+            + "FROM media m "
+            + "JOIN consumer_media cm ON cm.media_id = m.id "
+            + "JOIN consumer c ON c.id = cm.consumer_id";
+
+    // As linhas inseridas sao lidas do RETURNING *: o Postgres nao garante que venham pela ordem dos arrays
+    private static final String INSERT_MEDIA_SQL = "INSERT INTO media (title, release_date, average_rating, type) "
+            + "SELECT * FROM unnest($1::varchar[], $2::date[], $3::smallint[], $4::varchar[]) RETURNING *";
+
     @Autowired
     private MediaRepository mediaRepository;
 
     @Autowired
-    private ConsumerMediaRepository consumerMediaRepository;
+    private EntityCache<Media> mediaCache;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private ChangeFeed<Media> mediaChanges;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private R2dbcEntityTemplate entityTemplate;
+
+    @Value("${project.ingest.chunk-size:1000}")
+    private int ingestChunkSize;
+
+    @Value("${project.changes.heartbeat:15s}")
+    private Duration changesHeartbeat;
 
     /**
      * Criar item media
@@ -27,33 +79,139 @@ public class MediaService {
      */
     public Mono<Media> createMedia(Media media) {
         return mediaRepository.save(media)
-                .doOnSuccess(savedMedia -> log.info("Created media with ID: {}", savedMedia.getId()))
+                .transform(write -> tableVersions.bumpAfter(Table.MEDIA, write))
+                .doOnNext(mediaChanges::created)
+                .doOnSuccess(savedMedia -> log.debug("Created media with ID: {}", savedMedia.getId()))
                 .doOnError(error -> log.error("Failed to create media: {}", error.getMessage()));
     }
 
+    /**
+     * Criar varias medias em lote: as medias sao agrupadas em blocos de project.ingest.chunk-size
+     * e cada bloco e inserido com um unico INSERT (um round trip)
+     * @param media - medias a criar (stream)
+     * @return Flux com as medias criadas, lidas das linhas inseridas (com os IDs gerados)
+     */
+    public Flux<Media> createMediaBatch(Flux<Media> media) {
+        return media.buffer(ingestChunkSize)
+                .concatMap(chunk -> databaseClient.sql(INSERT_MEDIA_SQL)
+                        .bind(0, BatchInserts.column(chunk, Media::getTitle, String[]::new))
+                        .bind(1, BatchInserts.column(chunk, Media::getReleaseDate, LocalDate[]::new))
+                        .bind(2, BatchInserts.column(chunk, Media::getAverageRating, Short[]::new))
+                        .bind(3, BatchInserts.column(chunk, Media::getType, String[]::new))
+                        .map((row, metadata) -> entityTemplate.getConverter().read(Media.class, row, metadata))
+                        .all()
+                        .doOnComplete(() -> log.debug("Created batch of {} media items", chunk.size())))
+                .transform(write -> tableVersions.bumpAfter(Table.MEDIA, write))
+                .doOnNext(mediaChanges::created)
+                .doOnError(error -> log.error("Failed to create media batch: {}", error.getMessage()));
+    }
+
     /**
      * Obter todas as medias
      * @return Flux with all media items
      */
     public Flux<Media> getAllMedia() {
         return mediaRepository.findAll()
-                .doOnComplete(() -> log.info("Retrieved all media items"))
+                .doOnComplete(() -> log.debug("Retrieved all media items"))
                 .doOnError(error -> log.error("Failed to retrieve media items: {}", error.getMessage()));
     }
 
+    /**
+     * Obter uma pagina de medias por ordem de ID (keyset pagination: WHERE id > after ORDER BY id LIMIT n)
+     * @param after - ID do ultimo item da pagina anterior (null para a primeira pagina)
+     * @param limit - tamanho da pagina, limitado a {@link KeysetPage#MAX_LIMIT}
+     * @return Mono com a pagina e o cursor da pagina seguinte
+     */
+    public Mono<KeysetPage<Media>> getMediaPage(Long after, int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        return mediaRepository.findPageAfter(after != null ? after : 0L, pageSize + 1)
+                .collectList()
+                .map(rows -> KeysetPage.of(rows, pageSize, media -> String.valueOf(media.getId())))
+                .doOnSuccess(page -> log.debug("Retrieved medias page after ID {}: {}", after, page))
+                .doOnError(error -> log.error("Failed to retrieve medias page after ID {}: {}", after, error.getMessage()));
+    }
+
     /**
      * Obter media especifica
      * @param id - ID da media que se pretende obter
      * @return Mono with the specific media
      */
     public Mono<Media> getMediaById(Long id) {
-        return mediaRepository.findById(id)
+        return mediaCache.get(id, mediaRepository::findById)
                 .doOnSuccess(media -> {
-                    if (media != null) log.info("Retrieved media with ID: {}", id);
+                    if (media != null) log.debug("Retrieved media with ID: {}", id);
                 })
                 .doOnError(error -> log.error("Failed to retrieve media with ID {}: {}", id, error.getMessage()));
     }
 
+    /**
+     * Obter varias medias pelos seus IDs, com queries WHERE id IN (...) em blocos de {@value #LOOKUP_CHUNK_SIZE} IDs
+     * @param ids - IDs das medias que se pretende obter (IDs repetidos sao ignorados)
+     * @return Flux com as medias encontradas
+     */
+    public Flux<Media> getMediaByIds(Collection<Long> ids) {
+        return Flux.fromIterable(new LinkedHashSet<>(ids))
+                .buffer(LOOKUP_CHUNK_SIZE)
+                .concatMap(mediaRepository::findAllById)
+                .doOnComplete(() -> log.debug("Retrieved media items for {} requested IDs", ids.size()))
+                .doOnError(error -> log.error("Failed to retrieve media items by IDs: {}", error.getMessage()));
+    }
+
+    /**
+     * Pesquisar medias por intervalo de datas/ratings e tipo, numa query parametrizada (Criteria) que usa os indices
+     * de media (release_date, average_rating, type); os filtros null sao ignorados
+     * @param releasedFrom - data de lancamento minima (inclusive)
+     * @param releasedTo - data de lancamento maxima (inclusive)
+     * @param minRating - rating minimo (inclusive)
+     * @param maxRating - rating maximo (inclusive)
+     * @param type - tipo da media
+     * @param sort - "rating" (decrescente), "releaseDate" (crescente) ou null (por ID)
+     * @param limit - numero maximo de resultados, ou null para todos
+     * @return Flux com as medias encontradas
+     */
+    public Flux<Media> searchMedia(LocalDate releasedFrom, LocalDate releasedTo, Short minRating, Short maxRating,
+                                   String type, String sort, Integer limit) {
+        Criteria criteria = Criteria.empty();
+        if (releasedFrom != null) {
+            criteria = criteria.and("releaseDate").greaterThanOrEquals(releasedFrom);
+        }
+        if (releasedTo != null) {
+            criteria = criteria.and("releaseDate").lessThanOrEquals(releasedTo);
+        }
+        if (minRating != null) {
+            criteria = criteria.and("averageRating").greaterThanOrEquals(minRating);
+        }
+        if (maxRating != null) {
+            criteria = criteria.and("averageRating").lessThanOrEquals(maxRating);
+        }
+        if (type != null) {
+            criteria = criteria.and("type").is(type);
+        }
+
+        // O ID desempata, para a ordem ser estavel entre pedidos
+        Sort order = switch (sort == null ? "id" : sort) {
+            case "rating" -> Sort.by(Sort.Order.desc("averageRating"), Sort.Order.asc("id"));
+            case "releaseDate" -> Sort.by(Sort.Order.asc("releaseDate"), Sort.Order.asc("id"));
+            case "id" -> Sort.by("id");
+            default -> throw new IllegalArgumentException("Unknown sort '" + sort + "', expected rating or releaseDate");
+        };
+
+        Query query = Query.query(criteria).sort(order);
+        if (limit != null) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            query = query.limit(limit);
+        }
+
+        return entityTemplate.select(Media.class)
+                .matching(query)
+                .all()
+                .doOnComplete(() -> log.debug("Searched media (released from {} to {}, rating {} to {}, type {}, sort {}, limit {})",
+                        releasedFrom, releasedTo, minRating, maxRating, type, sort, limit))
+                .doOnError(error -> log.error("Failed to search media: {}", error.getMessage()));
+    }
+
     /**
      * Dar update aos dados de uma media
      * @param id - id da media para dar update
@@ -61,31 +219,160 @@ public class MediaService {
      * @return Mono with the updated media
      */
     public Mono<Media> updateMedia(Long id, Media media) {
-        return mediaRepository.findById(id)
-                .flatMap(existingMedia -> {
-                    media.setId(id); // Ensure we use the correct ID for the update
-                    return mediaRepository.save(media);
-                })
-                .doOnSuccess(updatedMedia -> log.info("Updated media with ID: {}", id))
+        // UPDATE ... RETURNING num unico round trip (vazio se o ID nao existir)
+        return mediaRepository.updateById(id, media.getTitle(), media.getReleaseDate(), media.getAverageRating(), media.getType())
+                .transform(write -> mediaCache.invalidateAfter(id, write))
+                .transform(write -> tableVersions.bumpAfter(Table.MEDIA, write))
+                .doOnNext(mediaChanges::updated)
+                .doOnSuccess(updatedMedia -> log.debug("Updated media with ID: {}", id))
                 .doOnError(error -> log.error("Failed to update media with ID {}: {}", id, error.getMessage()));
     }
 
+    /**
+     * Dar update parcial a uma media: so as colunas recebidas (nao null) sao alteradas
+     * @param id - id da media para dar update
+     * @param media - media com os campos a alterar
+     * @return Mono com a media atualizada (vazio se nao existir)
+     */
+    public Mono<Media> patchMedia(Long id, Media media) {
+        return mediaRepository.patchById(id, media.getTitle(), media.getReleaseDate(), media.getAverageRating(), media.getType())
+                .transform(write -> mediaCache.invalidateAfter(id, write))
+                .transform(write -> tableVersions.bumpAfter(Table.MEDIA, write))
+                .doOnNext(mediaChanges::updated)
+                .doOnSuccess(patched -> log.debug("Patched media with ID: {}", id))
+                .doOnError(error -> log.error("Failed to patch media with ID {}: {}", id, error.getMessage()));
+    }
+
     /**
      * Apagar media do repositorio se este não tiver relacao com nenhum consumidor
      * @param id da media para ser apagada
-     * @return Mono indicating the completion of delete operation
+     * @return Mono com true se a media foi apagada, false se o ID nao existir; IllegalStateException se ainda tiver relacoes
      */
-    public Mono<Void> deleteMedia(Long id) {
-        return consumerMediaRepository.existsByMediaId(id)
-                .flatMap(hasRelationship -> {
-                    if (hasRelationship) {
-                        log.warn("Cannot delete media with ID: {} due to existing relationships", id);
-                        return Mono.error(new IllegalStateException("Cannot delete media with existing relationships"));
-                    } else {
-                        return mediaRepository.deleteById(id)
-                                .doOnSuccess(unused -> log.info("Deleted media with ID: {}", id));
+    public Mono<Boolean> deleteMedia(Long id) {
+        return mediaRepository.deleteByIdIfUnreferenced(id) // DELETE ... WHERE NOT EXISTS (relacoes), sem check-then-act
+                .flatMap(deletedRows -> {
+                    if (deletedRows > 0) {
+                        log.debug("Deleted media with ID: {}", id);
+                        return Mono.just(true);
+                    }
+                    // nada foi apagado: com o ID ainda na tabela, e porque tem relacoes (so neste caso ha uma segunda query)
+                    return mediaRepository.existsById(id)
+                            .flatMap(exists -> {
+                                if (exists) {
+                                    log.warn("Cannot delete media with ID: {} due to existing relationships", id);
+                                    return Mono.<Boolean>error(new IllegalStateException("Cannot delete media with existing relationships"));
+                                }
+                                return Mono.just(false);
+                            });
+                })
+                .transform(write -> mediaCache.invalidateAfter(id, write))
+                .transform(write -> tableVersions.bumpAfter(Table.MEDIA, write))
+                .doOnNext(deleted -> {
+                    if (deleted) {
+                        mediaChanges.deleted(String.valueOf(id));
                     }
                 })
                 .doOnError(error -> log.error("Failed to delete media with ID {}: {}", id, error.getMessage()));
     }
+
+    /**
+     * Obter o feed de alteracoes da media (criacoes, atualizacoes e remocoes)
+     * @param since - sequencia do ultimo evento recebido (null para receber so as alteracoes novas)
+     * @return Flux sem fim com os eventos; termina com RESYNC quando o cliente tem de recarregar a colecao
+     */
+    public Flux<ChangeEvent<Media>> getMediaChanges(Long since) {
+        log.debug("Opening media change feed since {}", since);
+        return mediaChanges.changes(since, changesHeartbeat);
+    }
+
+    /**
+     * Obter estatisticas da media numa unica query agregada (contagem, media e desvio padrao dos ratings, media mais antiga)
+     * @param ratingThreshold - rating a partir do qual (exclusive) se contam as medias
+     * @param releasedFrom - data de lancamento minima (inclusive), pode ser null
+     * @param releasedTo - data de lancamento maxima (inclusive), pode ser null
+     * @return Mono com as estatisticas
+     */
+    public Mono<MediaStats> getMediaStats(short ratingThreshold, LocalDate releasedFrom, LocalDate releasedTo) {
+        StringBuilder where = new StringBuilder();
+        if (releasedFrom != null) {
+            where.append(" WHERE release_date >= :releasedFrom");
+        }
+        if (releasedTo != null) {
+            where.append(where.length() == 0 ? " WHERE" : " AND").append(" release_date <= :releasedTo");
+        }
+
+        // a CTE e lida uma so vez; a media mais antiga sai do mesmo conjunto filtrado
+        String sql = "WITH filtered AS (SELECT title, release_date, average_rating FROM media" + where + ") "
+                + "SELECT COUNT(*) AS total_count, "
+                + "COUNT(*) FILTER (WHERE average_rating > :ratingThreshold) AS count_above, "
+                + "AVG(average_rating)::float8 AS average_rating, "
+                + "STDDEV_SAMP(average_rating)::float8 AS rating_stddev, "
+                + "MIN(release_date) AS oldest_release_date, "
+                + "MAX(release_date) AS newest_release_date, "
+                + "(SELECT title FROM filtered ORDER BY release_date LIMIT 1) AS oldest_title "
+                + "FROM filtered";
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("ratingThreshold", (int) ratingThreshold);
+        if (releasedFrom != null) {
+            spec = spec.bind("releasedFrom", releasedFrom);
+        }
+        if (releasedTo != null) {
+            spec = spec.bind("releasedTo", releasedTo);
+        }
+
+        return spec.map((row, metadata) -> {
+                    MediaStats stats = new MediaStats();
+                    stats.setTotalCount(row.get("total_count", Long.class));
+                    stats.setRatingThreshold(ratingThreshold);
+                    stats.setCountAboveThreshold(row.get("count_above", Long.class));
+                    stats.setAverageRating(row.get("average_rating", Double.class));
+                    stats.setRatingStandardDeviation(row.get("rating_stddev", Double.class));
+                    stats.setOldestTitle(row.get("oldest_title", String.class));
+                    stats.setOldestReleaseDate(row.get("oldest_release_date", LocalDate.class));
+                    stats.setNewestReleaseDate(row.get("newest_release_date", LocalDate.class));
+                    return stats;
+                })
+                .one()
+                .doOnSuccess(stats -> log.debug("Retrieved media stats: {}", stats))
+                .doOnError(error -> log.error("Failed to retrieve media stats: {}", error.getMessage()));
+    }
+
+    /**
+     * Obter os subscritores de uma media, por ordem decrescente de idade
+     * @param mediaId - ID da media
+     * @return Flux com os subscritores da media
+     */
+    public Flux<MediaSubscriber> getSubscribers(Long mediaId) {
+        return databaseClient.sql(SUBSCRIBERS_SQL + " WHERE m.id = :mediaId ORDER BY c.age DESC, c.id")
+                .bind("mediaId", mediaId)
+                .map((row, metadata) -> toMediaSubscriber(row))
+                .all()
+                .doOnComplete(() -> log.debug("Retrieved subscribers of media with ID: {}", mediaId))
+                .doOnError(error -> log.error("Failed to retrieve subscribers of media with ID {}: {}", mediaId, error.getMessage()));
+    }
+
+    /**
+     * Obter todas as medias com os seus subscritores (join no servidor), por media e por ordem decrescente de idade.
+     * As linhas sao lidas do cursor em blocos de {@value #SUBSCRIBERS_FETCH_SIZE}, a medida que o cliente as consome
+     * @return Flux com uma linha por par media/subscritor
+     */
+    public Flux<MediaSubscriber> getAllSubscribers() {
+        return databaseClient.sql(SUBSCRIBERS_SQL + " ORDER BY m.id, c.age DESC, c.id")
+                .filter(statement -> statement.fetchSize(SUBSCRIBERS_FETCH_SIZE))
+                .map((row, metadata) -> toMediaSubscriber(row))
+                .all()
+                .doOnComplete(() -> log.debug("Retrieved subscribers of all media items"))
+                .doOnError(error -> log.error("Failed to retrieve subscribers of media items: {}", error.getMessage()));
+    }
+
+    private static MediaSubscriber toMediaSubscriber(Row row) {
+        MediaSubscriber subscriber = new MediaSubscriber();
+        subscriber.setMediaId(row.get("media_id", Long.class));
+        subscriber.setMediaTitle(row.get("title", String.class));
+        subscriber.setConsumerId(row.get("consumer_id", Long.class));
+        subscriber.setConsumerName(row.get("name", String.class));
+        subscriber.setConsumerAge(row.get("age", Integer.class));
+        return subscriber;
+    }
 }
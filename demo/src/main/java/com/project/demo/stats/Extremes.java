@@ -0,0 +1,53 @@
+package com.project.demo.stats;
+
+import java.util.Comparator;
+
+/**
+ * Menor e maior elemento segundo um comparador, num unico passo (sem ordenar).
+ * Em caso de empate fica o primeiro elemento visto
+ *
+ * @param <T> tipo dos elementos
+ */
+public final class Extremes<T> {
+
+    private final Comparator<? super T> comparator;
+
+    private T min;
+
+    private T max;
+
+    public Extremes(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    public void add(T value) {
+        if (min == null || comparator.compare(value, min) < 0) {
+            min = value;
+        }
+        if (max == null || comparator.compare(value, max) > 0) {
+            max = value;
+        }
+    }
+
+    public Extremes<T> combine(Extremes<T> other) {
+        if (other.min != null) {
+            add(other.min);
+            add(other.max);
+        }
+        return this;
+    }
+
+    /**
+     * @return menor elemento, ou null sem elementos
+     */
+    public T getMin() {
+        return min;
+    }
+
+    /**
+     * @return maior elemento, ou null sem elementos
+     */
+    public T getMax() {
+        return max;
+    }
+}
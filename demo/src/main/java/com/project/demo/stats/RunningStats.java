@@ -0,0 +1,99 @@
+package com.project.demo.stats;
+
+/**
+ * Contagem, media, variancia, minimo e maximo num unico passo e memoria constante (algoritmo de Welford):
+ * a media e a soma dos quadrados dos desvios sao atualizadas a cada valor, sem guardar os valores nem
+ * somar quadrados grandes (numericamente estavel). Dois acumuladores podem ser combinados (formula de Chan)
+ */
+public final class RunningStats {
+
+    private long count;
+
+    private double mean;
+
+    // Soma dos quadrados dos desvios a media
+    private double m2;
+
+    private double min = Double.NaN;
+
+    private double max = Double.NaN;
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (count == 1 || value < min) {
+            min = value;
+        }
+        if (count == 1 || value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Juntar os valores de outro acumulador a este
+     * @param other - acumulador com outra parte dos valores
+     * @return este acumulador
+     */
+    public RunningStats combine(RunningStats other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return this;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return media, ou NaN sem valores
+     */
+    public double getMean() {
+        return count > 0 ? mean : Double.NaN;
+    }
+
+    /**
+     * @return variancia amostral (n - 1), ou NaN com menos de 2 valores
+     */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : Double.NaN;
+    }
+
+    /**
+     * @return desvio padrao amostral, ou NaN com menos de 2 valores
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "RunningStats [count=" + count + ", mean=" + getMean() + ", stdDev=" + getStandardDeviation()
+                + ", min=" + min + ", max=" + max + "]";
+    }
+}
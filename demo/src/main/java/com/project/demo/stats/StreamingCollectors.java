@@ -0,0 +1,93 @@
+package com.project.demo.stats;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * Collectors de um so passo e memoria constante (ou limitada) sobre um campo dos elementos.
+ * Servem tanto para Flux.collect(...) (Reactor) como para Stream.collect(...):
+ * <pre>
+ * media.collect(StreamingCollectors.summarizing(Media::getAverageRating))    // Mono&lt;RunningStats&gt;
+ * media.collect(StreamingCollectors.topK(10, comparing(Media::getAverageRating)))    // Mono&lt;List&lt;Media&gt;&gt;
+ * </pre>
+ */
+public final class StreamingCollectors {
+
+    private StreamingCollectors() {
+    }
+
+    /**
+     * Contagem, media, desvio padrao, minimo e maximo (Welford)
+     * @param field - campo numerico
+     * @return Collector com o resultado em RunningStats
+     */
+    public static <T> Collector<T, ?, RunningStats> summarizing(ToDoubleFunction<? super T> field) {
+        return Collector.of(RunningStats::new,
+                (stats, value) -> stats.add(field.applyAsDouble(value)),
+                RunningStats::combine,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Menor e maior elemento segundo o comparador
+     * @param comparator - ordem dos elementos
+     * @return Collector com o resultado em Extremes
+     */
+    public static <T> Collector<T, ?, Extremes<T>> extremes(Comparator<? super T> comparator) {
+        return Collector.of(() -> new Extremes<T>(comparator),
+                Extremes::add,
+                Extremes::combine);
+    }
+
+    /**
+     * Os k maiores elementos segundo o comparador, do maior para o menor
+     * @param k - numero de elementos
+     * @param comparator - ordem dos elementos
+     * @return Collector com a lista dos k maiores
+     */
+    public static <T> Collector<T, ?, List<T>> topK(int k, Comparator<? super T> comparator) {
+        return Collector.of(() -> new TopK<T>(k, comparator),
+                TopK::add,
+                TopK::combine,
+                TopK::getResult);
+    }
+
+    /**
+     * Quantis aproximados de um campo numerico (t-digest)
+     * @param field - campo numerico
+     * @param compression - compressao do t-digest (100 e um bom valor por defeito)
+     * @return Collector com o resultado em TDigest (quantile(q))
+     */
+    public static <T> Collector<T, ?, TDigest> quantiles(ToDoubleFunction<? super T> field, double compression) {
+        return Collector.of(() -> new TDigest(compression),
+                (digest, value) -> digest.add(field.applyAsDouble(value)),
+                TDigest::combine,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Numero aproximado de valores distintos de um campo (HyperLogLog)
+     * @param field - campo (comparado pelo toString)
+     * @param precision - precisao do HyperLogLog (14 da cerca de 0.8% de erro em 16 KB)
+     * @return Collector com a estimativa
+     */
+    public static <T> Collector<T, ?, Long> distinctCount(Function<? super T, ?> field, int precision) {
+        return Collector.of(() -> new HyperLogLog(precision),
+                (sketch, value) -> addToSketch(sketch, field.apply(value)),
+                HyperLogLog::combine,
+                HyperLogLog::estimate,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    private static void addToSketch(HyperLogLog sketch, Object value) {
+        // Inteiros pelo valor; os restantes tipos (texto, datas, decimais) pela representacao em texto
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            sketch.add(((Number) value).longValue());
+        } else if (value != null) {
+            sketch.add(value.toString());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.project.demo.stats;
+
+import java.util.Arrays;
+
+/**
+ * Quantis aproximados com memoria limitada (t-digest com fusao, Dunning): os valores sao resumidos em centroides
+ * (media, peso), pequenos nas caudas e maiores no centro da distribuicao, pelo que os quantis extremos (p99, p99.9)
+ * ficam mais precisos. Os valores novos vao para um buffer que, quando cheio, e ordenado e fundido com os centroides.
+ * O numero de centroides e limitado pela compressao (cerca de compressao / 2), independentemente do numero de valores
+ */
+public final class TDigest {
+
+    private final double compression;
+
+    // Centroides ordenados por media
+    private double[] means;
+
+    private double[] weights;
+
+    private int centroidCount;
+
+    // Valores ainda nao fundidos
+    private final double[] bufferMeans;
+
+    private final double[] bufferWeights;
+
+    private int bufferCount;
+
+    // Area de trabalho da fusao (centroides + buffer)
+    private double[] mergeMeans;
+
+    private double[] mergeWeights;
+
+    private double totalWeight;
+
+    private double min = Double.NaN;
+
+    private double max = Double.NaN;
+
+    /**
+     * @param compression - compressao (100 da erros relativos na ordem de 1% no centro e menores nas caudas)
+     */
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("compression must be at least 10");
+        }
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) + 10;
+        means = new double[capacity];
+        weights = new double[capacity];
+        bufferMeans = new double[capacity * 5];
+        bufferWeights = new double[capacity * 5];
+        mergeMeans = new double[capacity * 6];
+        mergeWeights = new double[capacity * 6];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, double weight) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot add NaN");
+        }
+        if (bufferCount == bufferMeans.length) {
+            merge();
+        }
+        bufferMeans[bufferCount] = value;
+        bufferWeights[bufferCount] = weight;
+        bufferCount++;
+        totalWeight += weight;
+        if (Double.isNaN(min) || value < min) {
+            min = value;
+        }
+        if (Double.isNaN(max) || value > max) {
+            max = value;
+        }
+    }
+
+    public TDigest combine(TDigest other) {
+        other.merge();
+        for (int i = 0; i < other.centroidCount; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        if (other.totalWeight > 0) {
+            min = Double.isNaN(min) ? other.min : Math.min(min, other.min);
+            max = Double.isNaN(max) ? other.max : Math.max(max, other.max);
+        }
+        return this;
+    }
+
+    /**
+     * @param q - quantil entre 0 e 1 (0.5 = mediana)
+     * @return valor aproximado do quantil, ou NaN sem valores
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("q must be between 0 and 1");
+        }
+        merge();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (centroidCount == 1) {
+            return means[0];
+        }
+        double index = q * totalWeight;
+        // Antes do centro do primeiro centroide: interpolar a partir do minimo
+        if (index <= weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double cumulative = 0;
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double center = cumulative + weights[i] / 2;
+            double nextCenter = cumulative + weights[i] + weights[i + 1] / 2;
+            if (index <= nextCenter) {
+                return means[i] + (means[i + 1] - means[i]) * (index - center) / (nextCenter - center);
+            }
+            cumulative += weights[i];
+        }
+        // Depois do centro do ultimo centroide: interpolar ate ao maximo
+        int last = centroidCount - 1;
+        double lastCenter = totalWeight - weights[last] / 2;
+        return means[last] + (max - means[last]) * (index - lastCenter) / (weights[last] / 2);
+    }
+
+    public long size() {
+        return (long) totalWeight;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    int centroidCount() {
+        merge();
+        return centroidCount;
+    }
+
+    private void merge() {
+        if (bufferCount == 0) {
+            return;
+        }
+        sort(bufferMeans, bufferWeights, 0, bufferCount - 1);
+
+        // Juntar centroides e buffer (ambos ordenados) na area de trabalho
+        int total = centroidCount + bufferCount;
+        if (mergeMeans.length < total) {
+            mergeMeans = new double[total];
+            mergeWeights = new double[total];
+        }
+        int i = 0;
+        int j = 0;
+        for (int n = 0; n < total; n++) {
+            if (j >= bufferCount || (i < centroidCount && means[i] <= bufferMeans[j])) {
+                mergeMeans[n] = means[i];
+                mergeWeights[n] = weights[i++];
+            } else {
+                mergeMeans[n] = bufferMeans[j];
+                mergeWeights[n] = bufferWeights[j++];
+            }
+        }
+        bufferCount = 0;
+
+        // Fundir vizinhos enquanto o centroide nao passar uma unidade da escala k (k1: arco-seno)
+        centroidCount = 0;
+        double mean = mergeMeans[0];
+        double weight = mergeWeights[0];
+        double weightBefore = 0;
+        double limit = weightLimit(0);
+        for (int n = 1; n < total; n++) {
+            if (weightBefore + weight + mergeWeights[n] <= limit) {
+                weight += mergeWeights[n];
+                mean += (mergeMeans[n] - mean) * mergeWeights[n] / weight;
+            } else {
+                appendCentroid(mean, weight);
+                weightBefore += weight;
+                limit = weightLimit(weightBefore / totalWeight);
+                mean = mergeMeans[n];
+                weight = mergeWeights[n];
+            }
+        }
+        appendCentroid(mean, weight);
+    }
+
+    // Peso acumulado maximo do centroide que comeca no quantil q
+    private double weightLimit(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+        double nextK = Math.min(k + 1, compression / 4);
+        return (Math.sin(nextK * 2 * Math.PI / compression) + 1) / 2 * totalWeight;
+    }
+
+    private void appendCentroid(double mean, double weight) {
+        if (centroidCount == means.length) {
+            means = Arrays.copyOf(means, centroidCount * 2);
+            weights = Arrays.copyOf(weights, centroidCount * 2);
+        }
+        means[centroidCount] = mean;
+        weights[centroidCount] = weight;
+        centroidCount++;
+    }
+
+    // Quicksort dos valores (e pesos correspondentes) por valor
+    private static void sort(double[] keys, double[] values, int low, int high) {
+        while (low < high) {
+            double pivot = keys[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, i, j);
+                    swap(values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // Recursao no lado menor (profundidade O(log n))
+            if (j - low < high - i) {
+                sort(keys, values, low, j);
+                low = i;
+            } else {
+                sort(keys, values, i, high);
+                high = j;
+            }
+        }
+    }
+
+    private static void swap(double[] array, int i, int j) {
+        double tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+}
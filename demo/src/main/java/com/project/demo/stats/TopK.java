@@ -0,0 +1,54 @@
+package com.project.demo.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Os k maiores elementos segundo um comparador, com uma heap limitada a k elementos:
+ * O(n log k) e memoria O(k), em vez de ordenar os n elementos
+ *
+ * @param <T> tipo dos elementos
+ */
+public final class TopK<T> {
+
+    private final int k;
+
+    private final Comparator<? super T> comparator;
+
+    // Heap de minimo: a raiz e o menor dos k guardados (o primeiro a sair)
+    private final PriorityQueue<T> heap;
+
+    public TopK(int k, Comparator<? super T> comparator) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.k = k;
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(k, comparator);
+    }
+
+    public void add(T value) {
+        if (heap.size() < k) {
+            heap.add(value);
+        } else if (comparator.compare(value, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(value);
+        }
+    }
+
+    public TopK<T> combine(TopK<T> other) {
+        other.heap.forEach(this::add);
+        return this;
+    }
+
+    /**
+     * @return os k maiores elementos, do maior para o menor
+     */
+    public List<T> getResult() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(comparator.reversed());
+        return result;
+    }
+}
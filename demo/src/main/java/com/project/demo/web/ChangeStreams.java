@@ -0,0 +1,34 @@
+package com.project.demo.web;
+
+import com.project.demo.dto.ChangeEvent;
+
+import org.springframework.http.codec.ServerSentEvent;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Feeds de alteracoes (/changes) em Server-Sent Events: cada evento leva a sequencia no id e o tipo no nome do evento,
+ * para que um EventSource retome sozinho com o header Last-Event-ID depois de perder a conexao
+ */
+public final class ChangeStreams {
+
+    private ChangeStreams() {
+    }
+
+    public static <T> Flux<ServerSentEvent<ChangeEvent<T>>> serverSentEvents(Flux<ChangeEvent<T>> changes) {
+        return changes.map(event -> ServerSentEvent.builder(event)
+                .id(String.valueOf(event.getSequence()))
+                .event(event.getType().name())
+                .build());
+    }
+
+    /**
+     * Token para retomar o feed: o parametro since ou, no SSE, o Last-Event-ID enviado pelo EventSource ao voltar a ligar
+     * @param since - parametro since do pedido, pode ser null
+     * @param lastEventId - header Last-Event-ID, pode ser null
+     * @return sequencia a partir da qual retomar, ou null para receber so as alteracoes novas
+     */
+    public static Long resumeFrom(Long since, Long lastEventId) {
+        return since != null ? since : lastEventId;
+    }
+}
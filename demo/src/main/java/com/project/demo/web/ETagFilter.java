@@ -0,0 +1,90 @@
+package com.project.demo.web;
+
+import com.project.demo.cache.TableVersions;
+import com.project.demo.cache.TableVersions.Table;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * ETag e GET condicional nos endpoints de leitura das tabelas: o ETag vem das versoes em memoria ({@link TableVersions}),
+ * por isso um If-None-Match igual e respondido com 304 sem consultar a base de dados.
+ * Respostas com o mesmo ETag tem o mesmo conteudo, mas JSON e NDJSON sao representacoes diferentes: o ETag inclui o Accept (Vary: Accept)
+ */
+@Component
+@ConditionalOnProperty(name = "project.http.etag.enabled", havingValue = "true", matchIfMissing = true)
+public class ETagFilter implements WebFilter {
+
+    // Endpoints com ETag e as tabelas de que dependem (as restantes rotas, como /api/media/test e os feeds /changes, nao sao afetadas)
+    private static final Map<Pattern, Table[]> ROUTES = new LinkedHashMap<>();
+
+    static {
+        ROUTES.put(Pattern.compile("/api/media(/\\d+|/search|/stats)?"), new Table[]{Table.MEDIA});
+        ROUTES.put(Pattern.compile("/api/consumers(/\\d+)?"), new Table[]{Table.CONSUMER});
+        ROUTES.put(Pattern.compile("/api/relationships(/\\d+/\\d+|/counts)?"), new Table[]{Table.CONSUMER_MEDIA});
+        ROUTES.put(Pattern.compile("/api/media(/\\d+)?/subscribers"), Table.values());
+    }
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        Table[] tables = (method == HttpMethod.GET || method == HttpMethod.HEAD) ? tablesFor(exchange.getRequest().getPath().value()) : null;
+        if (tables == null) {
+            return chain.filter(exchange);
+        }
+
+        // Calculado antes da leitura (ver TableVersions)
+        String etag = variantETag(tableVersions.etag(tables), exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT));
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setCacheControl(CacheControl.noCache());
+        response.getHeaders().setVary(List.of(HttpHeaders.ACCEPT));
+        if (exchange.checkNotModified(etag)) {
+            return response.setComplete();
+        }
+        response.getHeaders().setETag(etag);
+        // Respostas de erro (por exemplo 404 num ID inexistente) nao levam ETag
+        response.beforeCommit(() -> {
+            HttpStatusCode status = response.getStatusCode();
+            if (status != null && !status.is2xxSuccessful()) {
+                response.getHeaders().remove(HttpHeaders.ETAG);
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+
+    private static Table[] tablesFor(String path) {
+        for (Map.Entry<Pattern, Table[]> route : ROUTES.entrySet()) {
+            if (route.getKey().matcher(path).matches()) {
+                return route.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String variantETag(String etag, String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + Integer.toHexString(accept.hashCode()) + "\"";
+    }
+}
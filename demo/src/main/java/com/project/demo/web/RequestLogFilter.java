@@ -0,0 +1,46 @@
+package com.project.demo.web;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log de pedidos amostrado: regista uma fracao (project.logging.request-sample-rate) dos pedidos
+ * e todos os que terminam com 5xx. As contagens e latencias de todos os pedidos estao em http.server.requests
+ */
+@Slf4j
+@Component
+public class RequestLogFilter implements WebFilter {
+
+    @Value("${project.logging.request-sample-rate:0.01}")
+    private double sampleRate;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        boolean sampled = ThreadLocalRandom.current().nextDouble() < sampleRate;
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(v -> logRequest(exchange, exchange.getResponse().getStatusCode(), sampled, start))
+                // Erros ainda nao tratados: o estado da resposta e o que o error handler vai escrever
+                .doOnError(e -> logRequest(exchange, e instanceof ErrorResponse response ? response.getStatusCode() : HttpStatus.INTERNAL_SERVER_ERROR, sampled, start));
+    }
+
+    private void logRequest(ServerWebExchange exchange, HttpStatusCode status, boolean sampled, long start) {
+        if (sampled || (status != null && status.is5xxServerError())) {
+            log.info("{} {} -> {} in {} ms", exchange.getRequest().getMethod(), exchange.getRequest().getURI().getRawPath(),
+                    status, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+}
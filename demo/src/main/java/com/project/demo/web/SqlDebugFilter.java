@@ -0,0 +1,30 @@
+package com.project.demo.web;
+
+import com.project.demo.logging.SqlDebug;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Ativa o registo do SQL apenas para o pedido com o header X-Debug-Sql: true.
+ * A flag segue no Context do Reactor ate a aquisicao da conexao (ver InstrumentedConnectionFactory)
+ */
+@Component
+@ConditionalOnProperty(name = "project.logging.sql-debug.enabled", havingValue = "true")
+public class SqlDebugFilter implements WebFilter {
+
+    public static final String HEADER = "X-Debug-Sql";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!"true".equalsIgnoreCase(exchange.getRequest().getHeaders().getFirst(HEADER))) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange).contextWrite(context -> context.put(SqlDebug.CONTEXT_KEY, true));
+    }
+}
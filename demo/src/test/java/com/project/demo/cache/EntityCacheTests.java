@@ -0,0 +1,73 @@
+package com.project.demo.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class EntityCacheTests {
+
+    private final EntityCache<String> cache = new EntityCache<>("test", 100, Duration.ofMinutes(5));
+
+    @Test
+    void concurrentMissesShareOneLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<String> row = Sinks.one();
+
+        Mono<String> first = cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return row.asMono();
+        });
+        Mono<String> second = cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return Mono.just("other");
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> row.tryEmitValue("value"))
+                .assertNext(values -> {
+                    assertThat(values.getT1()).isEqualTo("value");
+                    assertThat(values.getT2()).isEqualTo("value");
+                })
+                .verifyComplete();
+        assertThat(loads).hasValue(1);
+        assertThat(cache.statistics().getMisses()).isEqualTo(1);
+        assertThat(cache.statistics().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void loadInFlightDuringDeleteIsNotCached() {
+        Sinks.One<String> staleRow = Sinks.one();
+
+        // leitura iniciada antes do delete, ainda sem resposta da base de dados
+        Mono<String> staleRead = cache.get(1L, id -> staleRow.asMono());
+        StepVerifier.create(staleRead)
+                .then(() -> StepVerifier.create(cache.invalidateAfter(1L, Mono.<Void>empty())).verifyComplete())
+                .then(() -> staleRow.tryEmitValue("deleted row"))
+                .expectNext("deleted row")
+                .verifyComplete();
+
+        StepVerifier.create(cache.get(1L, id -> Mono.empty()))
+                .verifyComplete();
+    }
+
+    @Test
+    void missingEntitiesAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(cache.get(7L, id -> {
+                        loads.incrementAndGet();
+                        return Mono.empty();
+                    }))
+                    .verifyComplete();
+        }
+        assertThat(loads).hasValue(3);
+    }
+}
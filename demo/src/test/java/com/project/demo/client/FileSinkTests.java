@@ -0,0 +1,46 @@
+package com.project.demo.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+class FileSinkTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesAllLinesInOrderAndReplacesPreviousContent() throws IOException {
+        Path file = dir.resolve("out.txt");
+        Files.writeString(file, "old content\n");
+        List<String> lines = IntStream.range(0, 10_000).mapToObj(i -> "line " + i).toList();
+
+        StepVerifier.create(FileSink.write(Flux.fromIterable(lines), file.toString()))
+                .verifyComplete();
+
+        // Ao completar o ficheiro ja esta escrito e fechado
+        assertThat(Files.readAllLines(file)).isEqualTo(lines);
+    }
+
+    @Test
+    void requestsOnlyABoundedNumberOfLinesAhead() {
+        TestPublisher<String> lines = TestPublisher.createCold();
+
+        StepVerifier.create(FileSink.write(lines, dir.resolve("out.txt").toString()))
+                // Pedido limitado aos lotes em espera, nao ilimitado (backpressure para a origem)
+                .then(() -> lines.assertMinRequested(1).assertMaxRequested(100_000))
+                .then(lines::complete)
+                .verifyComplete();
+    }
+}
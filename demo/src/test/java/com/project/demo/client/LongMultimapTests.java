@@ -0,0 +1,60 @@
+package com.project.demo.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class LongMultimapTests {
+
+    @Test
+    void groupsValuesByKeyInInsertionOrder() {
+        LongMultimap multimap = LongMultimap.builder()
+                .add(7, 100)
+                .add(3, 200)
+                .add(7, 101)
+                .add(7, 100)
+                .build();
+
+        assertThat(multimap.get(7)).containsExactly(100, 101, 100);
+        assertThat(multimap.get(3)).containsExactly(200);
+        assertThat(multimap.get(4)).isEmpty();
+        assertThat(multimap.keyCount()).isEqualTo(2);
+        assertThat(multimap.size()).isEqualTo(4);
+        assertThat(multimap.distinctValues()).containsExactly(100, 101, 200);
+
+        List<Long> visited = new ArrayList<>();
+        multimap.forEach(7, visited::add);
+        assertThat(visited).containsExactly(100L, 101L, 100L);
+    }
+
+    @Test
+    void handlesManyKeysWithGrowth() {
+        LongMultimap.Builder builder = LongMultimap.builder();
+        for (long consumerId = 1; consumerId <= 5_000; consumerId++) {
+            builder.add(consumerId, consumerId * 10).add(consumerId, -consumerId);
+        }
+        LongMultimap multimap = builder.build();
+
+        assertThat(multimap.keyCount()).isEqualTo(5_000);
+        for (long consumerId = 1; consumerId <= 5_000; consumerId++) {
+            assertThat(multimap.get(consumerId)).containsExactly(consumerId * 10, -consumerId);
+        }
+    }
+
+    @Test
+    void longObjectMapReplacesAndResizes() {
+        LongObjectMap<String> map = new LongObjectMap<>(2);
+        for (long id = 0; id < 1_000; id++) {
+            map.put(id, "v" + id);
+        }
+        map.put(5, "replaced");
+
+        assertThat(map.size()).isEqualTo(1_000);
+        assertThat(map.get(5)).isEqualTo("replaced");
+        assertThat(map.get(999)).isEqualTo("v999");
+        assertThat(map.get(1_000)).isNull();
+    }
+}
@@ -0,0 +1,99 @@
+package com.project.demo.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ResilienceTests {
+
+    private static Resilience fastResilience() {
+        Resilience resilience = new Resilience();
+        resilience.apply("min-backoff", "1ms");
+        resilience.apply("max-backoff", "5ms");
+        resilience.apply("request-timeout", "200ms");
+        return resilience;
+    }
+
+    private static WebClientResponseException serverError() {
+        return WebClientResponseException.create(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable", null, null, null);
+    }
+
+    @Test
+    void retriesServerErrorsButNotClientErrorsOrPartialStreams() {
+        Resilience resilience = fastResilience();
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThat(resilience.call("flaky", () -> calls.incrementAndGet() < 3 ? Flux.<Integer>error(serverError()) : Flux.just(1, 2))
+                .collectList().block()).containsExactly(1, 2);
+        assertThat(calls).hasValue(3);
+
+        AtomicInteger notFound = new AtomicInteger();
+        assertThatThrownBy(() -> resilience.call("missing", () -> {
+            notFound.incrementAndGet();
+            return Flux.error(WebClientResponseException.create(404, "Not Found", null, null, null));
+        }).blockLast()).isInstanceOf(WebClientResponseException.NotFound.class);
+        assertThat(notFound).hasValue(1);
+
+        // Um stream que falha a meio nao e repetido (os elementos ja foram entregues)
+        AtomicInteger partial = new AtomicInteger();
+        assertThatThrownBy(() -> resilience.call("partial", () -> {
+            partial.incrementAndGet();
+            return Flux.just(1).concatWith(Flux.error(serverError()));
+        }).blockLast()).isInstanceOf(WebClientResponseException.ServiceUnavailable.class);
+        assertThat(partial).hasValue(1);
+    }
+
+    @Test
+    void openCircuitRejectsWithoutCallingTheServer() {
+        Resilience resilience = fastResilience();
+        AtomicInteger calls = new AtomicInteger();
+
+        // 1 + 3 retries e depois mais uma chamada: 5 falhas abrem o circuito
+        for (int i = 0; i < 2; i++) {
+            resilience.call("failing", () -> {
+                calls.incrementAndGet();
+                return Flux.error(serverError());
+            }).onErrorResume(error -> Flux.empty()).blockLast();
+        }
+        assertThat(resilience.getState("failing")).isEqualTo(CircuitBreaker.State.OPEN);
+        int callsWhenOpened = calls.get();
+        assertThat(callsWhenOpened).isLessThanOrEqualTo(5);
+
+        assertThatThrownBy(() -> resilience.call("failing", () -> {
+            calls.incrementAndGet();
+            return Flux.just(1);
+        }).blockLast()).isInstanceOf(CircuitBreaker.OpenException.class);
+        assertThat(calls).hasValue(callsWhenOpened);
+    }
+
+    @Test
+    void slowRequestIsHedgedAfterTheLearnedP95() {
+        Resilience resilience = fastResilience();
+        AtomicInteger calls = new AtomicInteger();
+
+        // Aprender a latencia normal (imediata) do endpoint
+        for (int i = 0; i < 50; i++) {
+            resilience.call("hedged", () -> {
+                calls.incrementAndGet();
+                return Flux.just(0);
+            }).blockLast();
+        }
+
+        // O primeiro pedido fica pendurado; o segundo (hedge) responde e ganha, antes do timeout
+        Integer result = resilience.call("hedged", () -> calls.incrementAndGet() == 51
+                        ? Mono.delay(Duration.ofSeconds(10)).thenMany(Flux.just(-1))
+                        : Flux.just(2))
+                .blockLast(Duration.ofMillis(150));
+        assertThat(result).isEqualTo(2);
+        assertThat(calls).hasValue(52);
+    }
+}
@@ -0,0 +1,113 @@
+package com.project.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.project.demo.cache.TableVersions;
+import com.project.demo.codec.SmileCodecs;
+import com.project.demo.config.CodecConfig;
+import com.project.demo.entity.Media;
+import com.project.demo.service.MediaService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@WebFluxTest(MediaController.class)
+@Import({TableVersions.class, CodecConfig.class}) // ETagFilter e codecs Smile
+class MediaControllerStreamingTests {
+
+    private static final int TABLE_SIZE = 1_000_000;
+
+    // Linhas que o servidor pode ter lidas a frente do cliente (buffers do encoder e do transporte)
+    private static final long MAX_READ_AHEAD = 1_000;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private MediaService mediaService;
+
+    @Test
+    void ndjsonStreamReadsTableOnlyAsFastAsTheClientConsumes() {
+        AtomicLong rowsRead = new AtomicLong();
+        Flux<Media> table = Flux.range(1, TABLE_SIZE)
+                .map(MediaControllerStreamingTests::media)
+                .doOnNext(media -> rowsRead.incrementAndGet());
+        when(mediaService.getAllMedia()).thenReturn(table);
+
+        Flux<Media> body = webTestClient.get()
+                .uri("/api/media")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Media.class)
+                .getResponseBody();
+
+        // cliente lento: pede 10 linhas de cada vez e faz pausas entre pedidos
+        StepVerifier.create(body, 0)
+                .thenRequest(10)
+                .expectNextCount(10)
+                .thenAwait(Duration.ofMillis(200))
+                .then(() -> assertThat(rowsRead.get()).isLessThan(MAX_READ_AHEAD))
+                .thenRequest(10)
+                .expectNextCount(10)
+                .thenAwait(Duration.ofMillis(200))
+                .then(() -> assertThat(rowsRead.get()).isLessThan(MAX_READ_AHEAD))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+
+        assertThat(rowsRead.get()).isLessThan(TABLE_SIZE);
+    }
+
+    @Test
+    void smileStreamDecodesTheSameRowsInFewerBytes() {
+        List<Media> rows = Flux.range(1, 1_000).map(MediaControllerStreamingTests::media).collectList().block();
+        when(mediaService.getAllMedia()).thenAnswer(invocation -> Flux.fromIterable(rows));
+
+        byte[] ndjson = webTestClient.get().uri("/api/media").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectBody().returnResult().getResponseBody();
+
+        WebTestClient smileClient = webTestClient.mutate().codecs(SmileCodecs::register).build();
+        byte[] smile = smileClient.get().uri("/api/media").accept(SmileCodecs.SMILE_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(SmileCodecs.SMILE_STREAM)
+                .expectBody().returnResult().getResponseBody();
+        assertThat(smile.length).isLessThan(ndjson.length * 3 / 4);
+
+        List<Media> decoded = smileClient.get().uri("/api/media").accept(SmileCodecs.SMILE_STREAM)
+                .exchange()
+                .returnResult(Media.class)
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        assertThat(decoded).hasSize(rows.size());
+        assertThat(decoded.get(999).getReleaseDate()).isEqualTo(rows.get(999).getReleaseDate());
+        assertThat(decoded.get(999).getTitle()).isEqualTo(rows.get(999).getTitle());
+    }
+
+    private static Media media(int id) {
+        Media media = new Media();
+        media.setId((long) id);
+        media.setTitle("Title " + id);
+        media.setReleaseDate(LocalDate.of(1980, 1, 1).plusDays(id % 10_000));
+        media.setAverageRating((short) (id % 10));
+        media.setType("movie");
+        return media;
+    }
+}
@@ -0,0 +1,97 @@
+package com.project.demo.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.project.demo.entity.ConsumerMedia;
+import com.project.demo.repository.ConsumerMediaRepository;
+import com.project.demo.service.ChangeFeed;
+import com.project.demo.service.ConsumerMediaService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.function.Function;
+
+class ServiceMetricsAspectTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ConsumerMediaRepository repository = mock(ConsumerMediaRepository.class);
+
+    private ConsumerMediaService service;
+
+    @BeforeEach
+    void setUp() {
+        ServiceMetricsAspect aspect = new ServiceMetricsAspect();
+        ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+        ConsumerMediaService target = new ConsumerMediaService();
+        ReflectionTestUtils.setField(target, "consumerMediaRepository", repository);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        service = factory.getProxy();
+    }
+
+    @Test
+    void fluxIsTimedFromSubscriptionToCompletion() {
+        Sinks.Many<ConsumerMedia> rows = Sinks.many().unicast().onBackpressureBuffer();
+        when(repository.findByMediaId(1L)).thenReturn(rows.asFlux());
+
+        Flux<ConsumerMedia> relationships = service.getRelationshipsByMediaId(1L);
+        assertThat(meterRegistry.find(ServiceMetricsAspect.METRIC_NAME).timers()).isEmpty();
+
+        StepVerifier.create(relationships)
+                .then(() -> {
+                    // Subscrito mas ainda sem sinal terminal: nada registado
+                    assertThat(meterRegistry.find(ServiceMetricsAspect.METRIC_NAME).timers()).isEmpty();
+                    rows.tryEmitNext(new ConsumerMedia());
+                    rows.tryEmitComplete();
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        Timer timer = meterRegistry.get(ServiceMetricsAspect.METRIC_NAME)
+                .tags("service", "ConsumerMediaService", "operation", "getRelationshipsByMediaId", "outcome", "SUCCESS")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void errorsAreTaggedWithOutcomeAndException() {
+        when(repository.findByMediaId(2L)).thenReturn(Flux.error(new IllegalStateException("boom")));
+
+        StepVerifier.create(service.getRelationshipsByMediaId(2L))
+                .verifyError(IllegalStateException.class);
+
+        Timer timer = meterRegistry.get(ServiceMetricsAspect.METRIC_NAME)
+                .tags("outcome", "ERROR", "exception", "IllegalStateException")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void changeFeedsAreNotTimed() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ChangeFeed<String>("test", 10, 10, Function.identity()));
+        factory.setProxyTargetClass(true);
+        ServiceMetricsAspect aspect = new ServiceMetricsAspect();
+        ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+        factory.addAspect(aspect);
+        ChangeFeed<String> feed = factory.getProxy();
+
+        feed.created("a");
+        feed.currentSequence();
+
+        assertThat(meterRegistry.find(ServiceMetricsAspect.METRIC_NAME).timers()).isEmpty();
+    }
+}
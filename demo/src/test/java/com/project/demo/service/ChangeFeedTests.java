@@ -0,0 +1,124 @@
+package com.project.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.project.demo.dto.ChangeEvent;
+import com.project.demo.dto.ChangeEvent.Type;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+class ChangeFeedTests {
+
+    private static final Duration HEARTBEAT = Duration.ofHours(1);
+
+    @Test
+    void resumesAfterSinceWithoutRepeatingOrLosingEvents() {
+        ChangeFeed<String> feed = new ChangeFeed<>("test", 100, 100, Function.identity());
+        feed.created("a");
+        long afterA = feed.currentSequence();
+        feed.updated("b");
+        feed.deleted("c");
+
+        StepVerifier.create(feed.changes(afterA, HEARTBEAT))
+                .assertNext(event -> {
+                    assertThat(event.getType()).isEqualTo(Type.HEARTBEAT);
+                    // o HEARTBEAT inicial fica em since: usado como Last-Event-ID nao salta os eventos seguintes
+                    assertThat(event.getSequence()).isEqualTo(afterA);
+                })
+                .assertNext(event -> {
+                    assertThat(event.getType()).isEqualTo(Type.UPDATED);
+                    assertThat(event.getSequence()).isEqualTo(afterA + 1);
+                    assertThat(event.getEntity()).isEqualTo("b");
+                })
+                .assertNext(event -> {
+                    assertThat(event.getType()).isEqualTo(Type.DELETED);
+                    assertThat(event.getKey()).isEqualTo("c");
+                    assertThat(event.getEntity()).isNull();
+                })
+                .then(() -> feed.created("d"))
+                .assertNext(event -> assertThat(event.getKey()).isEqualTo("d"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void sinceOutsideTheHistoryAsksForResync() {
+        ChangeFeed<String> feed = new ChangeFeed<>("test", 2, 100, Function.identity());
+        long start = feed.currentSequence();
+        feed.created("a");
+        feed.created("b");
+        feed.created("c");
+
+        StepVerifier.create(feed.changes(start, HEARTBEAT))
+                .assertNext(event -> {
+                    assertThat(event.getType()).isEqualTo(Type.RESYNC);
+                    assertThat(event.getSequence()).isEqualTo(start + 3);
+                })
+                .verifyComplete();
+        // since de uma execucao anterior do servidor (ou inventado) tambem
+        StepVerifier.create(feed.changes(start + 10, HEARTBEAT))
+                .expectNextMatches(event -> event.getType() == Type.RESYNC)
+                .verifyComplete();
+    }
+
+    @Test
+    void writesBetweenTheHistoryCheckAndTheSubscriptionAskForResync() {
+        // simula escritas entre ler a sequencia atual e subscrever o replay: since + 1 sai do historico
+        AtomicBoolean race = new AtomicBoolean();
+        ChangeFeed<String> feed = new ChangeFeed<>("test", 2, 100, Function.identity()) {
+            @Override
+            public synchronized long currentSequence() {
+                long head = super.currentSequence();
+                if (race.compareAndSet(true, false)) {
+                    created("b");
+                    created("c");
+                    created("d");
+                }
+                return head;
+            }
+        };
+        feed.created("a");
+        long afterA = feed.currentSequence();
+        race.set(true);
+
+        StepVerifier.create(feed.changes(afterA - 1, HEARTBEAT))
+                .expectNextMatches(event -> event.getType() == Type.HEARTBEAT)
+                .assertNext(event -> {
+                    assertThat(event.getType()).isEqualTo(Type.RESYNC);
+                    assertThat(event.getSequence()).isEqualTo(afterA + 3);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void slowSubscriberGetsResyncWithoutHoldingBackTheOthers() {
+        ChangeFeed<String> feed = new ChangeFeed<>("test", 1000, 2, Function.identity());
+        List<ChangeEvent<String>> fast = new CopyOnWriteArrayList<>();
+        Disposable fastSubscriber = feed.changes(null, HEARTBEAT).subscribe(fast::add);
+
+        StepVerifier.create(feed.changes(null, HEARTBEAT), 1)
+                .expectNextMatches(event -> event.getType() == Type.HEARTBEAT)
+                .then(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        feed.created("m" + i);
+                    }
+                })
+                .thenRequest(Long.MAX_VALUE)
+                .thenConsumeWhile(event -> event.getType() != Type.RESYNC)
+                .expectNextMatches(event -> event.getType() == Type.RESYNC)
+                .verifyComplete();
+
+        assertThat(fast).hasSize(201);
+        assertThat(fast.get(200).getKey()).isEqualTo("m199");
+        fastSubscriber.dispose();
+    }
+}
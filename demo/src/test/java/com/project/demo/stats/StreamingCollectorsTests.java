@@ -0,0 +1,79 @@
+package com.project.demo.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+class StreamingCollectorsTests {
+
+    @Test
+    void summarizingMatchesTwoPassMeanAndSampleStandardDeviation() {
+        double[] values = new Random(1).doubles(10_000, 1e9, 1e9 + 10).toArray();
+        double mean = Arrays.stream(values).average().orElseThrow();
+        double variance = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / (values.length - 1);
+
+        RunningStats stats = Flux.fromStream(Arrays.stream(values).boxed())
+                .collect(StreamingCollectors.summarizing(Double::doubleValue))
+                .block();
+
+        assertThat(stats.getCount()).isEqualTo(values.length);
+        assertThat(stats.getMean()).isCloseTo(mean, within(1e-6));
+        assertThat(stats.getStandardDeviation()).isCloseTo(Math.sqrt(variance), within(1e-6));
+        assertThat(stats.getMin()).isEqualTo(Arrays.stream(values).min().orElseThrow());
+
+        // Combinar duas metades da o mesmo resultado (Collector em paralelo)
+        RunningStats parallel = Arrays.stream(values).boxed().parallel()
+                .collect(StreamingCollectors.summarizing(Double::doubleValue));
+        assertThat(parallel.getStandardDeviation()).isCloseTo(Math.sqrt(variance), within(1e-6));
+    }
+
+    @Test
+    void extremesAndTopKWithoutSorting() {
+        List<Integer> values = IntStream.range(0, 1_000).map(i -> (i * 7919) % 1_000).boxed().toList();
+
+        Extremes<Integer> extremes = values.stream().collect(StreamingCollectors.extremes(Comparator.naturalOrder()));
+        assertThat(extremes.getMin()).isZero();
+        assertThat(extremes.getMax()).isEqualTo(999);
+
+        assertThat(values.parallelStream().collect(StreamingCollectors.topK(3, Comparator.<Integer>naturalOrder())))
+                .containsExactly(999, 998, 997);
+    }
+
+    @Test
+    void tDigestQuantilesStayCloseWithBoundedCentroids() {
+        double[] values = new Random(2).doubles(200_000).map(v -> v * v).toArray();
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        TDigest digest = Arrays.stream(values).boxed().collect(StreamingCollectors.quantiles(Double::doubleValue, 100));
+
+        for (double q : new double[]{0.01, 0.5, 0.9, 0.99, 0.999}) {
+            double exact = sorted[(int) (q * (sorted.length - 1))];
+            assertThat(digest.quantile(q)).as("q=%s", q).isCloseTo(exact, within(0.01));
+        }
+        assertThat(digest.quantile(0)).isEqualTo(sorted[0]);
+        assertThat(digest.quantile(1)).isEqualTo(sorted[sorted.length - 1]);
+        assertThat(digest.centroidCount()).isLessThan(100);
+    }
+
+    @Test
+    void distinctCountIsWithinAFewPercent() {
+        // 100k IDs distintos, cada um repetido 3 vezes
+        long estimate = LongStream.range(0, 300_000).map(i -> i % 100_000).boxed()
+                .collect(StreamingCollectors.distinctCount(id -> id, 14));
+        assertThat(estimate).isBetween(97_000L, 103_000L);
+
+        long titles = IntStream.range(0, 500).mapToObj(i -> "Title " + i).collect(StreamingCollectors.distinctCount(t -> t, 14));
+        assertThat(titles).isBetween(490L, 510L);
+    }
+}
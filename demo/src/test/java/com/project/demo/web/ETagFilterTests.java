@@ -0,0 +1,80 @@
+package com.project.demo.web;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.project.demo.cache.TableVersions;
+import com.project.demo.cache.TableVersions.Table;
+import com.project.demo.controller.MediaController;
+import com.project.demo.entity.Media;
+import com.project.demo.service.MediaService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@WebFluxTest(MediaController.class)
+@Import(TableVersions.class)
+class ETagFilterTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @MockBean
+    private MediaService mediaService;
+
+    @Test
+    void unchangedTableIsAnswered304WithoutCallingTheService() {
+        Media media = new Media();
+        media.setId(1L);
+        media.setTitle("Title");
+        when(mediaService.getAllMedia()).thenReturn(Flux.just(media));
+
+        String etag = webTestClient.get().uri("/api/media").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(Media.class).getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/api/media").accept(MediaType.APPLICATION_NDJSON).ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+        verify(mediaService, times(1)).getAllMedia();
+
+        // Outra representacao (JSON) tem outro ETag
+        webTestClient.get().uri("/api/media").accept(MediaType.APPLICATION_JSON).ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isOk();
+
+        // Uma escrita na tabela muda o ETag
+        tableVersions.bump(Table.MEDIA);
+        webTestClient.get().uri("/api/media").accept(MediaType.APPLICATION_NDJSON).ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isOk();
+        verify(mediaService, times(3)).getAllMedia();
+    }
+
+    @Test
+    void missingEntityHasNoETag() {
+        when(mediaService.getMediaById(42L)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/api/media/42")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().doesNotExist(HttpHeaders.ETAG);
+    }
+}